@@ -0,0 +1,307 @@
+/**
+ * Finds the closest name to a misspelt word, used for "did you mean" suggestions.
+ *
+ * a BK-tree stores each name under its parent by how many letters are different (edit distance)
+ * so a search only looks at branches that could be close enough instead of every name
+ *
+ * names are added to a tree of Node objects, the first search copies the tree into a few arrays in
+ * breadth first order so a search reads memory that is close together instead of following
+ * references all over the heap
+ *
+ * run main to time searches with a large number of names
+ *
+ * @author agent
+ * @version 19/10/26
+ */
+
+import java.util.ArrayList; // Flexible sized array
+import java.util.Arrays;
+import java.util.Random;
+
+public class BKTree
+{
+    class Node {
+        String word;
+        String lowerWord; // compared without caring about capitals
+        // children[d] is the child at distance d from this word
+        Node[] children = new Node[0];
+        int index; // place in the flat arrays
+
+        Node(String word) {
+            this.word = word;
+            this.lowerWord = word.toLowerCase();
+        }
+    }
+
+    class Flat {
+        // the tree as arrays, node 0 is the root
+        String[] words;
+        char[] letters; // every lower case word one after another
+        int[] wordStart; // node i is letters[wordStart[i]] to letters[wordStart[i + 1]]
+        int[] children; // node number of the child at each distance, -1 if none
+        int[] childStart; // node i's child at distance d is children[childStart[i] + d]
+    }
+
+    Node root;
+    int size = 0;
+    // made again by the next search after a name is added, volatile so games on other threads see it
+    volatile Flat flat;
+
+    synchronized void add(String word) {
+        if (word == null || word.isEmpty()) {
+            return;
+        }
+        flat = null;
+        if (root == null) {
+            root = new Node(word);
+            size++;
+            return;
+        }
+        String lowerWord = word.toLowerCase();
+        Node node = root;
+        while (true) {
+            int distance = distance(node.lowerWord, lowerWord);
+            if (distance == 0) {
+                // already in the tree
+                return;
+            }
+            if (distance >= node.children.length) {
+                node.children = Arrays.copyOf(node.children, distance + 1);
+            }
+            Node child = node.children[distance];
+            if (child == null) {
+                node.children[distance] = new Node(word);
+                size++;
+                return;
+            }
+            node = child;
+        }
+    }
+
+    synchronized Flat flatten() {
+        if (flat != null) {
+            return flat;
+        }
+        // number the nodes breadth first so children of the same node are next to each other
+        ArrayList<Node> order = new ArrayList<>();
+        order.add(root);
+        int letterCount = 0;
+        int childCount = 0;
+        for (int i = 0; i < order.size(); i++) {
+            Node node = order.get(i);
+            node.index = i;
+            letterCount += node.lowerWord.length();
+            childCount += node.children.length;
+            for (Node child: node.children) {
+                if (child != null) {
+                    order.add(child);
+                }
+            }
+        }
+        Flat newFlat = new Flat();
+        newFlat.words = new String[order.size()];
+        newFlat.letters = new char[letterCount];
+        newFlat.wordStart = new int[order.size() + 1];
+        newFlat.children = new int[childCount];
+        newFlat.childStart = new int[order.size() + 1];
+        int letterPosition = 0;
+        int childPosition = 0;
+        for (int i = 0; i < order.size(); i++) {
+            Node node = order.get(i);
+            newFlat.words[i] = node.word;
+            newFlat.wordStart[i] = letterPosition;
+            node.lowerWord.getChars(0, node.lowerWord.length(), newFlat.letters, letterPosition);
+            letterPosition += node.lowerWord.length();
+            newFlat.childStart[i] = childPosition;
+            for (Node child: node.children) {
+                newFlat.children[childPosition++] = child == null ? -1 : child.index;
+            }
+        }
+        newFlat.wordStart[order.size()] = letterPosition;
+        newFlat.childStart[order.size()] = childPosition;
+        flat = newFlat;
+        return flat;
+    }
+
+    String closest(String query) {
+        // closest word with up to 1 letter wrong for short words, 2 for longer words, null if none
+        int maxDistance = query.length() <= 4 ? 1 : 2;
+        return closest(query, maxDistance);
+    }
+
+    String closest(String query, int maxDistance) {
+        if (root == null || query == null) {
+            return null;
+        }
+        Flat tree = flat;
+        if (tree == null) {
+            tree = flatten();
+        }
+        String lowerQuery = query.toLowerCase();
+        long[] letterMasks = letterMasks(lowerQuery);
+        int best = -1;
+        int bestDistance = maxDistance + 1;
+        // nodes still to check, arrays used as a stack so there is no recursion on deep trees
+        // least[i] is the smallest distance stack[i] could be from the query
+        int[] stack = new int[64];
+        int[] least = new int[64];
+        int stackSize = 1;
+        while (stackSize > 0) {
+            stackSize--;
+            int node = stack[stackSize];
+            if (least[stackSize] >= bestDistance) {
+                // a closer word was found after this node was put on the stack
+                continue;
+            }
+            int start = tree.wordStart[node];
+            int end = tree.wordStart[node + 1];
+            int distance;
+            if (letterMasks != null) {
+                distance = distance(letterMasks, lowerQuery.length(), tree.letters, start, end);
+            } else {
+                distance = distance(new String(tree.letters, start, end - start), lowerQuery);
+            }
+            if (distance < bestDistance) {
+                best = node;
+                bestDistance = distance;
+                if (distance == 0) {
+                    break;
+                }
+            }
+            // triangle inequality: a child at distance d from this node is at least |d - distance|
+            // from the query, so only children with d close to distance can beat the best
+            int range = bestDistance - 1;
+            int childStart = tree.childStart[node];
+            int childCount = tree.childStart[node + 1] - childStart;
+            // children furthest from distance go on the stack first so the most likely ones are
+            // checked first and bring bestDistance down sooner
+            for (int offset = range; offset >= 0; offset--) {
+                for (int side = 0; side < (offset == 0 ? 1 : 2); side++) {
+                    int d = side == 0 ? distance + offset : distance - offset;
+                    if (d < 1 || d >= childCount || tree.children[childStart + d] < 0) {
+                        continue;
+                    }
+                    if (stackSize == stack.length) {
+                        stack = Arrays.copyOf(stack, stack.length * 2);
+                        least = Arrays.copyOf(least, least.length * 2);
+                    }
+                    stack[stackSize] = tree.children[childStart + d];
+                    least[stackSize++] = offset;
+                }
+            }
+        }
+        return best == -1 ? null : tree.words[best];
+    }
+
+    static int distance(String a, String b) {
+        // number of letters to add, remove or change to turn a into b
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            char letter = a.charAt(i - 1);
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = letter == b.charAt(j - 1) ? 0 : 1;
+                current[j] = Math.min(Math.min(current[j - 1] + 1, previous[j] + 1), previous[j - 1] + cost);
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return previous[b.length()];
+    }
+
+    static long[] letterMasks(String query) {
+        // for each letter a bit set at every place it is in the query, null if the query is too long
+        // or has letters outside ascii (the slower distance is used then)
+        if (query.length() > 64) {
+            return null;
+        }
+        long[] masks = new long[128];
+        for (int i = 0; i < query.length(); i++) {
+            char letter = query.charAt(i);
+            if (letter >= 128) {
+                return null;
+            }
+            masks[letter] |= 1L << i;
+        }
+        return masks;
+    }
+
+    static int distance(long[] letterMasks, int queryLength, char[] letters, int start, int end) {
+        // same answer as distance(query, word) where the word is letters[start] to letters[end], but works on
+        // a whole column of the table at once using the bits of a long (Myers' bit-parallel algorithm)
+        if (queryLength == 0) {
+            return end - start;
+        }
+        long last = 1L << (queryLength - 1);
+        long plusVertical = -1L; // bits where the table goes up by 1 going down the column
+        long minusVertical = 0L; // bits where it goes down by 1
+        int distance = queryLength;
+        for (int j = start; j < end; j++) {
+            char letter = letters[j];
+            long equal = letter < 128 ? letterMasks[letter] : 0L;
+            long x = equal | minusVertical;
+            long plusHorizontalAll = (((equal & plusVertical) + plusVertical) ^ plusVertical) | equal;
+            long plusHorizontal = minusVertical | ~(plusHorizontalAll | plusVertical);
+            long minusHorizontal = plusVertical & plusHorizontalAll;
+            if ((plusHorizontal & last) != 0) {
+                distance++;
+            } else if ((minusHorizontal & last) != 0) {
+                distance--;
+            }
+            // the top row of the table goes up by 1 each letter
+            plusHorizontal = (plusHorizontal << 1) | 1L;
+            minusHorizontal = minusHorizontal << 1;
+            plusVertical = minusHorizontal | ~(x | plusHorizontal);
+            minusVertical = plusHorizontal & x;
+        }
+        return distance;
+    }
+
+    public static void main(String[] args) {
+        // java BKTree (number of names)
+        int names = 300000;
+        if (args.length > 0) {
+            names = Integer.parseInt(args[0]);
+        }
+        Random random = new Random(1);
+        BKTree tree = new BKTree();
+        String[] words = new String[names];
+        for (int i = 0; i < names; i++) {
+            // random names of 5 to 14 letters
+            char[] letters = new char[5 + random.nextInt(10)];
+            for (int j = 0; j < letters.length; j++) {
+                letters[j] = (char) ('a' + random.nextInt(26));
+            }
+            words[i] = new String(letters);
+        }
+        long startTime = System.nanoTime();
+        for (String word: words) {
+            tree.add(word);
+        }
+        tree.flatten();
+        System.out.println("added " + tree.size + " names in " + (System.nanoTime() - startTime) / 1000000 + "ms");
+
+        // misspell names by changing one letter and search for them
+        int searches = 2000;
+        int found = 0;
+        for (int round = 0; round < 3; round++) {
+            // first rounds warm up the JIT
+            found = 0;
+            startTime = System.nanoTime();
+            for (int i = 0; i < searches; i++) {
+                char[] letters = words[random.nextInt(names)].toCharArray();
+                letters[random.nextInt(letters.length)] = (char) ('a' + random.nextInt(26));
+                if (tree.closest(new String(letters)) != null) {
+                    found++;
+                }
+            }
+        }
+        double microseconds = (System.nanoTime() - startTime) / 1000.0 / searches;
+        System.out.printf("%d searches, %d found, %.1f microseconds per search%n", searches, found, microseconds);
+    }
+}
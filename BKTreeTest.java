@@ -0,0 +1,99 @@
+/**
+ * Checks the BK-tree finds a name as close as looking through every name would.
+ *
+ * names are made up from a seed, misspelt and searched for, and the answer is compared with the closest
+ * distance found by checking every name. long and non ascii queries use the slower distance so they are
+ * checked too
+ *
+ * run "java BKTreeTest" from the project folder, it prints every check that failed and exits with 1
+ *
+ * @author agent
+ * @version 19/10/26
+ */
+
+import java.util.ArrayList; // Flexible sized array
+import java.util.Random; // Same names every run
+
+public class BKTreeTest extends TestCheck
+{
+    static String randomWord(Random random, int length) {
+        char[] letters = new char[length];
+        for (int i = 0; i < length; i++) {
+            letters[i] = (char) ('a' + random.nextInt(6)); // few letters so many names are close together
+        }
+        return new String(letters);
+    }
+
+    void checkAgainstEveryName() {
+        Random random = new Random(1);
+        BKTree tree = new BKTree();
+        ArrayList<String> names = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            String name = randomWord(random, 3 + random.nextInt(8));
+            names.add(name);
+            tree.add(name);
+        }
+        for (int i = 0; i < 2000; i++) {
+            // a name with one letter changed, a made up word, or a long word for the slower distance
+            String query;
+            int kind = random.nextInt(3);
+            if (kind == 0) {
+                char[] letters = names.get(random.nextInt(names.size())).toCharArray();
+                letters[random.nextInt(letters.length)] = (char) ('a' + random.nextInt(26));
+                query = new String(letters);
+            } else if (kind == 1) {
+                query = randomWord(random, 1 + random.nextInt(10));
+            } else {
+                query = randomWord(random, 60 + random.nextInt(10));
+            }
+            int maxDistance = query.length() <= 4 ? 1 : 2;
+            int bestDistance = Integer.MAX_VALUE;
+            for (String name: names) {
+                bestDistance = Math.min(bestDistance, BKTree.distance(name, query));
+            }
+            String found = tree.closest(query);
+            if (bestDistance > maxDistance) {
+                check(found == null, "'" + query + "' has no name close enough but found '" + found + "'");
+            } else {
+                check(found != null && BKTree.distance(found, query) == bestDistance,
+                    "'" + query + "' should be " + bestDistance + " from its closest name, found '" + found + "'");
+            }
+        }
+    }
+
+    void checkDistances() {
+        // the bit parallel distance gives the same answer as the table
+        Random random = new Random(2);
+        for (int i = 0; i < 2000; i++) {
+            String a = randomWord(random, 1 + random.nextInt(64));
+            String b = randomWord(random, random.nextInt(20));
+            char[] letters = b.toCharArray();
+            int distance = BKTree.distance(BKTree.letterMasks(a), a.length(), letters, 0, letters.length);
+            check(distance == BKTree.distance(b, a), "distance from '" + a + "' to '" + b + "'");
+        }
+        check(BKTree.distance("kitten", "sitting") == 3, "kitten to sitting is 3");
+        check(BKTree.letterMasks("caf\u00e9") == null, "non ascii queries use the slower distance");
+    }
+
+    void checkNames() {
+        BKTree tree = new BKTree();
+        check(tree.closest("potato") == null, "an empty tree finds nothing");
+        tree.add("PotatoFarm");
+        tree.add("");
+        tree.add(null);
+        check(tree.size == 1, "empty names are not added");
+        check("PotatoFarm".equals(tree.closest("potatofrm")), "capitals are ignored and the name comes back as it was added");
+        // a name added after a search is found by the next search
+        check(tree.closest("enginroom") == null, "nothing close to enginroom yet");
+        tree.add("EngineRoom");
+        check("EngineRoom".equals(tree.closest("enginroom")), "a name added after a search is found");
+    }
+
+    public static void main(String[] args) {
+        BKTreeTest test = new BKTreeTest();
+        test.checkAgainstEveryName();
+        test.checkDistances();
+        test.checkNames();
+        test.finish();
+    }
+}
@@ -0,0 +1,348 @@
+/**
+ * Crew members that walk around the station on their own.
+ * They move between rooms, pick up and drop items and use interactables.
+ * in a game crew leave interactables and the items the player needs alone so the game can always be won,
+ * only the benchmark lets them use everything
+ *
+ * every turn each crew member decides what to do at the same time (in parallel)
+ * then the decisions are applied in order of crew id so two crew members wanting the same item
+ * always end the same way, no matter how many threads were used
+ *
+ * run main to benchmark how many crew members can be stepped each second
+ *
+ * @author agent
+ * @version 19/10/26
+ */
+
+import java.util.ArrayList; // Flexible sized array
+import java.util.Arrays; // Sort so the order does not depend on the Hashtable
+import java.util.Collections;
+import java.util.HashMap; // Snapshot of rooms, only read while crew decide
+import java.util.List;
+import java.util.Map;
+import java.util.Random; // Each crew member has their own so runs can be repeated with a seed
+import java.util.Enumeration; // Goes with Dictionary
+import java.util.Dictionary;
+import java.util.concurrent.ForkJoinPool; // Run the parallel parts with a set number of threads
+import java.util.stream.Collectors;
+
+public class CrewSimulation
+{
+    enum CrewAction {
+        WAIT,
+        MOVE,
+        PICKUP,
+        DROP,
+        INTERACT
+    }
+
+    class CrewMember {
+        int id; // order the decisions are applied in
+        String name;
+        String room;
+        String holding = null; // crew can only carry one item, null if not holding anything
+        Random random;
+        // what the crew member decided to do this turn
+        CrewAction action = CrewAction.WAIT;
+        String target; // direction, item or interactable depending on action
+
+        CrewMember(int id, String name, String room) {
+            this.id = id;
+            this.name = name;
+            this.room = room;
+            // seed from the simulation seed and id so each crew member does the same thing every run
+            this.random = new Random(seed * 31 + id);
+        }
+    }
+
+    class RoomView {
+        // copy of one room taken at the start of a turn, never changed while crew decide
+        String[] directions;
+        HashMap<String, String> leadsTo = new HashMap<>();
+        String[] items;
+        String[] interactables;
+    }
+
+    SpaceStationTextAdventure adventure;
+    long seed;
+    ArrayList<CrewMember> crew = new ArrayList<>();
+    HashMap<String, RoomView> roomViews = new HashMap<>();
+    // false for the benchmark, where there is no player who needs to win
+    boolean leaveGameAlone = true;
+
+    CrewSimulation(SpaceStationTextAdventure adventure, long seed) {
+        this.adventure = adventure;
+        this.seed = seed;
+    }
+
+    void addCrewMember(String name, String room) {
+        crew.add(new CrewMember(crew.size(), name, room));
+    }
+
+    CrewSimulation copyFor(SpaceStationTextAdventure game) {
+        // same crew for another game of the station
+        // the loaded pack is never played so its crew are still in their starting rooms
+        CrewSimulation copy = new CrewSimulation(game, seed);
+        copy.leaveGameAlone = leaveGameAlone;
+        for (CrewMember member: crew) {
+            copy.addCrewMember(member.name, member.room);
+        }
+        return copy;
+    }
+
+    ArrayList<String> crewInRoom(String room) {
+        ArrayList<String> names = new ArrayList<>();
+        for (CrewMember member: crew) {
+            if (member.room.equals(room)) {
+                names.add(member.name);
+            }
+        }
+        return names;
+    }
+
+    ArrayList<String> step(String playerRoom) {
+        // step every crew member once
+        // returns what the player saw happen in their room
+        ArrayList<String> seen = new ArrayList<>();
+
+        // copy the station so crew can read it from many threads without locking the dictionaries
+        takeSnapshot();
+        // decide in parallel, each crew member only reads the snapshot and their own random
+        crew.parallelStream().forEach(member -> decide(member));
+
+        // interactables change directions for everyone so they are done one at a time in id order
+        boolean directionsChanged = false;
+        for (CrewMember member: crew) {
+            if (member.action == CrewAction.INTERACT) {
+                if (applyInteract(member) && member.room.equals(playerRoom)) {
+                    seen.add(member.name + " used the " + member.target);
+                }
+                directionsChanged = true;
+            }
+        }
+        if (directionsChanged) {
+            // moves need to see the doors that just opened or closed
+            takeSnapshot();
+        }
+
+        // items only move inside one room so every room can be done at the same time
+        // groupingBy keeps the crew in id order inside each room
+        Map<String, List<CrewMember>> itemsByRoom = crew.parallelStream()
+            .filter(member -> member.action == CrewAction.PICKUP || member.action == CrewAction.DROP)
+            .collect(Collectors.groupingBy(member -> member.room));
+        List<String> itemsSeen = itemsByRoom.values().parallelStream()
+            .flatMap(roomCrew -> applyItems(roomCrew, playerRoom).stream())
+            .collect(Collectors.toList());
+        seen.addAll(itemsSeen);
+
+        // moves only change the crew member moving
+        List<String> movesSeen = crew.parallelStream()
+            .filter(member -> member.action == CrewAction.MOVE)
+            .map(member -> applyMove(member, playerRoom))
+            .filter(line -> line != null)
+            .collect(Collectors.toList());
+        seen.addAll(movesSeen);
+        return seen;
+    }
+
+    void takeSnapshot() {
+        roomViews.clear();
+        Enumeration<String> rooms = adventure.roomDictionary.keys();
+        while (rooms.hasMoreElements()) {
+            String room = rooms.nextElement();
+            RoomView view = new RoomView();
+
+            Dictionary<String, String> roomDirections = adventure.directionDictionary.get(room);
+            view.directions = new String[roomDirections.size()];
+            Enumeration<String> directions = roomDirections.keys();
+            int i = 0;
+            while (directions.hasMoreElements()) {
+                String direction = directions.nextElement();
+                view.directions[i] = direction;
+                view.leadsTo.put(direction, roomDirections.get(direction));
+                i++;
+            }
+            // sort so the random pick does not depend on the order of the Hashtable
+            Arrays.sort(view.directions);
+
+            ArrayList<String> items = new ArrayList<>();
+            for (String item: adventure.itemsDictionary.get(room)) {
+                if (!leaveGameAlone || !neededToWin(item)) {
+                    items.add(item);
+                }
+            }
+            view.items = items.toArray(new String[0]);
+
+            Dictionary<String, String[]> roomInteractables = adventure.interactDictionary.get(room);
+            if (leaveGameAlone) {
+                // a door the crew closed could shut the player out of the rest of the station
+                view.interactables = new String[0];
+                roomViews.put(room, view);
+                continue;
+            }
+            view.interactables = new String[roomInteractables.size()];
+            Enumeration<String> interactables = roomInteractables.keys();
+            i = 0;
+            while (interactables.hasMoreElements()) {
+                view.interactables[i] = interactables.nextElement();
+                i++;
+            }
+            Arrays.sort(view.interactables);
+
+            roomViews.put(room, view);
+        }
+    }
+
+    boolean neededToWin(String item) {
+        // items that can be used or that a rule needs, crew could carry them somewhere the player never goes
+        return adventure.useItemsDictionary.get(item) != null || (adventure.rules != null && adventure.rules.mentions(item));
+    }
+
+    void decide(CrewMember member) {
+        RoomView view = roomViews.get(member.room);
+        member.action = CrewAction.WAIT;
+        member.target = null;
+        int roll = member.random.nextInt(100);
+        if (member.holding != null && roll < 10) {
+            member.action = CrewAction.DROP;
+            member.target = member.holding;
+        } else if (member.holding == null && view.items.length > 0 && roll < 25) {
+            member.action = CrewAction.PICKUP;
+            member.target = view.items[member.random.nextInt(view.items.length)];
+        } else if (view.interactables.length > 0 && roll >= 25 && roll < 30) {
+            member.action = CrewAction.INTERACT;
+            member.target = view.interactables[member.random.nextInt(view.interactables.length)];
+        } else if (view.directions.length > 0 && roll >= 30 && roll < 80) {
+            member.action = CrewAction.MOVE;
+            member.target = view.directions[member.random.nextInt(view.directions.length)];
+        }
+        // otherwise wait in the room
+    }
+
+    boolean applyInteract(CrewMember member) {
+        // same toggle as the player but crew do not print the interactable text
+        String[] info = adventure.getInteractInRoom(member.room, member.target);
+        if (info == null) {
+            return false;
+        }
+        String startingRoom = info[0];
+        String leadsTo = info[1];
+        String direction = info[2];
+        if (adventure.roomInDirection(startingRoom, direction) != null) {
+            adventure.delDirection(startingRoom, direction);
+        } else {
+            adventure.addDirection(startingRoom, direction, leadsTo);
+        }
+        return true;
+    }
+
+    ArrayList<String> applyItems(List<CrewMember> roomCrew, String playerRoom) {
+        // every crew member in the list is in the same room, in id order
+        // if two crew want the same item, the lower id gets it
+        ArrayList<String> seen = new ArrayList<>();
+        for (CrewMember member: roomCrew) {
+            if (member.action == CrewAction.PICKUP) {
+                if (member.holding == null && adventure.removeItem(member.room, member.target)) {
+                    member.holding = member.target;
+                    if (member.room.equals(playerRoom)) {
+                        seen.add(member.name + " picked up the " + member.target);
+                    }
+                }
+            } else if (member.action == CrewAction.DROP) {
+                adventure.addItem(member.room, member.holding);
+                if (member.room.equals(playerRoom)) {
+                    seen.add(member.name + " dropped the " + member.holding);
+                }
+                member.holding = null;
+            }
+        }
+        return seen;
+    }
+
+    String applyMove(CrewMember member, String playerRoom) {
+        // returns what the player saw or null
+        String leadsTo = roomViews.get(member.room).leadsTo.get(member.target);
+        if (leadsTo == null || roomViews.get(leadsTo) == null) {
+            // door closed this turn or the room does not exist
+            return null;
+        }
+        String seen = null;
+        if (member.room.equals(playerRoom)) {
+            seen = member.name + " went " + member.target;
+        } else if (leadsTo.equals(playerRoom)) {
+            seen = member.name + " walked in";
+        }
+        member.room = leadsTo;
+        return seen;
+    }
+
+    long checksum() {
+        // number from every crew member and room, the same seed should give the same checksum at any thread count
+        long sum = 0;
+        for (CrewMember member: crew) {
+            sum = sum * 31 + member.room.hashCode();
+            sum = sum * 31 + (member.holding == null ? 0 : member.holding.hashCode());
+        }
+        String[] rooms = roomViews.keySet().toArray(new String[0]);
+        Arrays.sort(rooms);
+        for (String room: rooms) {
+            sum = sum * 31 + adventure.itemsDictionary.get(room).hashCode();
+            sum = sum * 31 + adventure.directionDictionary.get(room).hashCode();
+        }
+        return sum;
+    }
+
+    public static void main(String[] args) {
+        // benchmark: java CrewSimulation (crew members) (turns) (seed)
+        int crewCount = 20000;
+        int turns = 200;
+        long seed = 1;
+        if (args.length > 0) {
+            crewCount = Integer.parseInt(args[0]);
+        }
+        if (args.length > 1) {
+            turns = Integer.parseInt(args[1]);
+        }
+        if (args.length > 2) {
+            seed = Long.parseLong(args[2]);
+        }
+
+        int maxThreads = Runtime.getRuntime().availableProcessors();
+        System.out.println(crewCount + " crew members, " + turns + " turns, seed " + seed);
+        for (int threads = 1; threads <= maxThreads; threads *= 2) {
+            // load the station again each run so every run starts the same
+            SpaceStationTextAdventure adventure = new SpaceStationTextAdventure(false);
+            CrewSimulation simulation = new CrewSimulation(adventure, seed);
+            simulation.leaveGameAlone = false;
+            String[] rooms = new String[0];
+            rooms = Collections.list(adventure.roomDictionary.keys()).toArray(rooms);
+            Arrays.sort(rooms);
+            Random placement = new Random(seed);
+            for (int i = 0; i < crewCount; i++) {
+                simulation.addCrewMember("crew" + i, rooms[placement.nextInt(rooms.length)]);
+            }
+
+            ForkJoinPool pool = new ForkJoinPool(threads);
+            // warm up so the JIT has compiled the step before timing
+            final int warmupTurns = Math.min(turns, 20);
+            pool.submit(() -> {
+                for (int turn = 0; turn < warmupTurns; turn++) {
+                    simulation.step(null);
+                }
+            }).join();
+            final int timedTurns = turns;
+            long startTime = System.nanoTime();
+            // parallel streams started inside the pool use the pool's threads
+            pool.submit(() -> {
+                for (int turn = 0; turn < timedTurns; turn++) {
+                    simulation.step(null);
+                }
+            }).join();
+            long time = System.nanoTime() - startTime;
+            pool.shutdown();
+
+            double crewPerSecond = (double) crewCount * turns / (time / 1e9);
+            System.out.printf("%2d threads: %,.0f crew steps per second, checksum %d%n", threads, crewPerSecond, simulation.checksum());
+        }
+    }
+}
@@ -0,0 +1,104 @@
+/**
+ * Checks the crew do exactly the same thing with the same seed however many threads step them, and that
+ * a game's crew leave alone the items and doors the player needs to win.
+ *
+ * uses the station in the project folder, so run it from there: "java CrewSimulationTest"
+ * it prints every check that failed and exits with 1
+ *
+ * @author agent
+ * @version 19/10/26
+ */
+
+import java.io.File; // Station folder
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList; // Flexible sized array
+import java.util.Collections;
+import java.util.Random; // Same crew every run
+import java.util.Scanner; // Game keyboard
+import java.util.concurrent.ForkJoinPool; // Step the crew with a set number of threads
+
+public class CrewSimulationTest extends TestCheck
+{
+    final int CREW = 500;
+    final int TURNS = 100;
+    SpaceStationTextAdventure pack = new SpaceStationTextAdventure(new File("."), false);
+
+    SpaceStationTextAdventure newGame() {
+        return new SpaceStationTextAdventure(pack, new Scanner(""), new PrintStream(OutputStream.nullOutputStream()));
+    }
+
+    ArrayList<String> run(int threads, long seed) {
+        // everything the player in the Hub saw, then where every crew member ended up and what they hold
+        SpaceStationTextAdventure game = newGame();
+        CrewSimulation simulation = new CrewSimulation(game, seed);
+        simulation.leaveGameAlone = false;
+        ArrayList<String> rooms = Collections.list(game.roomDictionary.keys());
+        Collections.sort(rooms);
+        Random placement = new Random(seed);
+        for (int i = 0; i < CREW; i++) {
+            simulation.addCrewMember("crew" + i, rooms.get(placement.nextInt(rooms.size())));
+        }
+        ArrayList<String> result = new ArrayList<>();
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        // parallel streams started inside the pool use the pool's threads
+        pool.submit(() -> {
+            for (int turn = 0; turn < TURNS; turn++) {
+                result.addAll(simulation.step("Hub"));
+            }
+        }).join();
+        pool.shutdown();
+        for (CrewSimulation.CrewMember member: simulation.crew) {
+            result.add(member.name + " " + member.room + " " + member.holding);
+        }
+        result.add("checksum " + simulation.checksum());
+        return result;
+    }
+
+    void checkThreads() {
+        ArrayList<String> oneThread = run(1, 7);
+        check(oneThread.size() > CREW + 1, "the player saw the crew do something");
+        for (int threads: new int[] {2, 4, 8}) {
+            check(run(threads, 7).equals(oneThread), threads + " threads give the same crew as 1 thread");
+        }
+        check(!run(1, 8).equals(oneThread), "another seed gives another crew");
+    }
+
+    void checkLeaveGameAlone() {
+        // the game's own crew, stepped for a long time, never touch what the player needs
+        SpaceStationTextAdventure game = newGame();
+        check(game.crew != null && game.crew.leaveGameAlone, "the station has a crew that leaves the game alone");
+        if (game.crew == null) {
+            return;
+        }
+        // more crew so every room is visited
+        for (int i = 0; i < 50; i++) {
+            game.crew.addCrewMember("extra" + i, game.currentSettings.startingRoom);
+        }
+        ArrayList<String> rooms = Collections.list(game.roomDictionary.keys());
+        ArrayList<String> before = new ArrayList<>();
+        for (String room: rooms) {
+            before.add(room + " " + game.directionDictionary.get(room));
+        }
+        for (int turn = 0; turn < 1000; turn++) {
+            game.crew.step(null);
+        }
+        ArrayList<String> after = new ArrayList<>();
+        for (String room: rooms) {
+            after.add(room + " " + game.directionDictionary.get(room));
+            for (String item: pack.itemsDictionary.get(room)) {
+                if (game.crew.neededToWin(item)) {
+                    check(game.itemsDictionary.get(room).contains(item), "the " + item + " needed to win is still in " + room);
+                }
+            }
+        }
+        check(after.equals(before), "the crew did not open or close any doors");
+    }
+
+    public static void main(String[] args) {
+        CrewSimulationTest test = new CrewSimulationTest();
+        test.checkThreads();
+        test.checkLeaveGameAlone();
+        test.finish();
+    }
+}
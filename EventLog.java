@@ -0,0 +1,167 @@
+/**
+ * Saves every command and what happened to it in the logs folder.
+ *
+ * games put events into a queue and carry on, a background thread writes them to the file in batches
+ * so a turn never waits for the disk
+ * if the queue is full (the disk cannot keep up) new events are dropped and counted instead of making
+ * the game wait, the number dropped is written to the log once there is room again
+ *
+ * the log is events.log, when it gets bigger than maxFileBytes it is renamed with the time and
+ * compressed to .gz (if compress is true) and a new events.log is started
+ *
+ * each line is tab separated:
+ * time, game, turn, command type, instruction, room before, room after, success, outcome
+ *
+ * @author agent
+ * @version 19/10/26
+ */
+
+import java.io.BufferedWriter; // Write many events at once
+import java.io.File; // Get files
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FileWriter;
+import java.io.IOException; // Handle file exceptions
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.text.SimpleDateFormat; // Name rotated files by time
+import java.util.ArrayList; // Flexible sized array
+import java.util.Date;
+import java.util.concurrent.ArrayBlockingQueue; // Bounded queue between the games and the writer
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream; // Compress rotated files
+
+public class EventLog
+{
+    final int QUEUESIZE = 16384;
+    final int BATCHSIZE = 1024;
+    static final String HEADER = "time\tgame\tturn\ttype\tinstruction\troomBefore\troomAfter\tsuccess\toutcome";
+
+    File folder;
+    File logFile;
+    long maxFileBytes = 10 * 1024 * 1024;
+    boolean compress = true;
+
+    ArrayBlockingQueue<String> queue = new ArrayBlockingQueue<>(QUEUESIZE);
+    // events thrown away because the queue was full
+    AtomicLong dropped = new AtomicLong();
+    volatile boolean closed = false;
+    Thread writerThread;
+    BufferedWriter writer;
+    int rotations = 0; // added to rotated file names in case two rotations happen in the same millisecond
+
+    EventLog(File folder) {
+        this.folder = folder;
+        this.logFile = new File(folder, "events.log");
+        writerThread = new Thread(() -> writeEvents(), "event log writer");
+        // daemon so an unclosed log does not stop the program from ending, the shutdown hook still saves it
+        writerThread.setDaemon(true);
+        writerThread.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> close()));
+    }
+
+    void log(String game, int turn, String type, String instruction, String roomBefore, String roomAfter, boolean success, String outcome) {
+        // called by games, never waits
+        String line = System.currentTimeMillis() + "\t" + game + "\t" + turn + "\t" + type + "\t" + clean(instruction)
+            + "\t" + roomBefore + "\t" + roomAfter + "\t" + success + "\t" + clean(outcome);
+        if (!queue.offer(line)) {
+            dropped.incrementAndGet();
+        }
+    }
+
+    String clean(String text) {
+        // tabs and new lines would break the columns
+        if (text == null) {
+            return "";
+        }
+        return text.replace('\t', ' ').replace('\n', ' ').replace('\r', ' ');
+    }
+
+    void close() {
+        // write everything left in the queue, safe to call more than once
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            writerThread.join(5000);
+        } catch (InterruptedException error) {
+            // stop waiting
+        }
+    }
+
+    void writeEvents() {
+        // runs on the writer thread
+        ArrayList<String> batch = new ArrayList<>();
+        try {
+            openLog();
+            while (!closed || !queue.isEmpty()) {
+                String first = queue.poll(200, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, BATCHSIZE - 1);
+                for (String line: batch) {
+                    writer.write(line);
+                    writer.newLine();
+                }
+                batch.clear();
+                long droppedCount = dropped.getAndSet(0);
+                if (droppedCount > 0) {
+                    writer.write(System.currentTimeMillis() + "\tlog\t0\tDROPPED\t\t\t\tfalse\t" + droppedCount + " events dropped, queue was full");
+                    writer.newLine();
+                }
+                // one flush for the whole batch
+                writer.flush();
+                if (logFile.length() > maxFileBytes) {
+                    rotate();
+                }
+            }
+        } catch (IOException error) {
+            System.out.println("event log stopped: " + error.getClass().getCanonicalName());
+            closed = true;
+        } catch (InterruptedException error) {
+            // stopping
+        } finally {
+            try {
+                if (writer != null) {
+                    writer.close();
+                }
+            } catch (IOException error) {
+                // nothing else to do
+            }
+        }
+    }
+
+    void openLog() throws IOException {
+        folder.mkdirs();
+        boolean newFile = !logFile.exists() || logFile.length() == 0;
+        // append so restarting the program does not lose the old log
+        writer = new BufferedWriter(new FileWriter(logFile, true), 64 * 1024);
+        if (newFile) {
+            writer.write(HEADER);
+            writer.newLine();
+        }
+    }
+
+    void rotate() throws IOException {
+        writer.close();
+        String time = new SimpleDateFormat("yyyyMMdd-HHmmss-SSS").format(new Date());
+        rotations++;
+        File rotated = new File(folder, "events-" + time + "-" + rotations + ".log");
+        if (!logFile.renameTo(rotated)) {
+            throw new IOException("could not rename " + logFile);
+        }
+        if (compress) {
+            // games keep adding to the queue while this runs
+            File compressed = new File(folder, rotated.getName() + ".gz");
+            try (InputStream in = new FileInputStream(rotated); OutputStream out = new GZIPOutputStream(new FileOutputStream(compressed))) {
+                in.transferTo(out);
+            }
+            rotated.delete();
+        }
+        openLog();
+    }
+}
@@ -0,0 +1,135 @@
+/**
+ * Checks every event logged by games on many threads is in the log once close returns, in the order
+ * each game logged it, and that none are lost when the log is rotated and compressed.
+ *
+ * writes to a new folder in the temporary folder and deletes it at the end
+ * run "java EventLogTest" from the project folder, it prints every check that failed and exits with 1
+ *
+ * @author agent
+ * @version 19/10/26
+ */
+
+import java.io.BufferedReader; // Read the log back
+import java.io.File; // Log folder
+import java.io.FileInputStream;
+import java.io.IOException; // Handle file exceptions
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList; // Flexible sized array
+import java.util.Arrays;
+import java.util.Hashtable;
+import java.util.zip.GZIPInputStream; // Read rotated files
+
+public class EventLogTest extends TestCheck
+{
+    final int GAMES = 4;
+    final int TURNS = 2000;
+
+    void logFromGames(EventLog log) throws InterruptedException {
+        // each game logs its turns on its own thread, like the server's games do
+        ArrayList<Thread> threads = new ArrayList<>();
+        for (int game = 0; game < GAMES; game++) {
+            String name = "game" + game;
+            Thread thread = new Thread(() -> {
+                for (int turn = 1; turn <= TURNS; turn++) {
+                    log.log(name, turn, "MOVE", "go\tnorth", "Hub", "Entrance", true, "moved\nto Entrance");
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread: threads) {
+            thread.join();
+        }
+    }
+
+    static int rotation(File file) {
+        // rotated files end with how many rotations there had been, events.log is newer than all of them
+        String name = file.getName();
+        if (name.equals("events.log")) {
+            return Integer.MAX_VALUE;
+        }
+        return Integer.parseInt(name.substring(name.lastIndexOf('-') + 1, name.indexOf(".log")));
+    }
+
+    static ArrayList<String> readLines(File file) throws IOException {
+        ArrayList<String> lines = new ArrayList<>();
+        InputStream in = new FileInputStream(file);
+        if (file.getName().endsWith(".gz")) {
+            in = new GZIPInputStream(in);
+        }
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lines.add(line);
+            }
+        }
+        return lines;
+    }
+
+    void checkEvents(File folder, int files, String what) throws IOException {
+        // the events of all the files, oldest file first
+        File[] logFiles = folder.listFiles();
+        Arrays.sort(logFiles, (a, b) -> rotation(a) - rotation(b));
+        check(files < 0 ? logFiles.length > 1 : logFiles.length == files, what + ": " + logFiles.length + " log files");
+        Hashtable<String, Integer> lastTurns = new Hashtable<>();
+        int events = 0;
+        boolean inOrder = true;
+        boolean clean = true;
+        for (File file: logFiles) {
+            ArrayList<String> lines = readLines(file);
+            check(!lines.isEmpty() && lines.get(0).equals(EventLog.HEADER), what + ": " + file.getName() + " starts with the header");
+            for (String line: lines.subList(1, lines.size())) {
+                String[] columns = line.split("\t", -1);
+                clean = clean && columns.length == 9;
+                int turn = Integer.parseInt(columns[2]);
+                inOrder = inOrder && turn == lastTurns.getOrDefault(columns[1], 0) + 1;
+                lastTurns.put(columns[1], turn);
+                events++;
+            }
+        }
+        check(events == GAMES * TURNS, what + ": every event was written once close returned (" + events + " of " + GAMES * TURNS + ")");
+        check(inOrder, what + ": each game's events are in the order it logged them");
+        check(clean, what + ": tabs and new lines in the text do not break the columns");
+    }
+
+    static File newFolder() throws IOException {
+        return Files.createTempDirectory("eventlog").toFile();
+    }
+
+    static void delete(File folder) {
+        for (File file: folder.listFiles()) {
+            file.delete();
+        }
+        folder.delete();
+    }
+
+    void checkWritten() throws IOException, InterruptedException {
+        File folder = newFolder();
+        EventLog log = new EventLog(folder);
+        logFromGames(log);
+        log.close();
+        checkEvents(folder, 1, "one log");
+        check(log.dropped.get() == 0, "nothing was dropped while the queue had room");
+        delete(folder);
+    }
+
+    void checkRotated() throws IOException, InterruptedException {
+        File folder = newFolder();
+        EventLog log = new EventLog(folder);
+        log.maxFileBytes = 32 * 1024;
+        logFromGames(log);
+        log.close();
+        checkEvents(folder, -1, "rotated logs");
+        delete(folder);
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        EventLogTest test = new EventLogTest();
+        test.checkWritten();
+        test.checkRotated();
+        test.finish();
+    }
+}
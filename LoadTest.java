@@ -0,0 +1,472 @@
+/**
+ * Plays the station with many made up players at once to see how the game copes with real traffic.
+ *
+ * each player is a thread that walks around at random: moving (sometimes into walls), picking up, dropping
+ * and using items, using interactables, reading descriptions and mistyping commands
+ * when a game ends (won or lost) the player starts a new one
+ * the test is run with 1, 2, 4 ... up to the most players, and for each number of players prints
+ * turns a second, how long a turn takes (p50, p99 and p99.9), memory allocated a second and garbage
+ * collection pauses, so the point where adding players stops adding turns a second can be found
+ *
+ * private and shared run the games in this program, like the server does but without the network:
+ * the game reads its keyboard from the player, so a turn is timed from the command being given to the
+ * game asking for the next one
+ * server plays against a server that is already running, timing a turn from sending the command to the
+ * "Input a command" line coming back. allocation and pauses are then the server's, so they are not shown
+ *
+ * java LoadTest (private/shared/server) (most players) (seconds for each number of players) (server port)
+ *
+ * @author agent
+ * @version 19/10/26
+ */
+
+import java.io.BufferedReader; // Read the server's output
+import java.io.File; // Station folder
+import java.io.IOException; // Handle connection exceptions
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.management.GarbageCollectorMXBean; // Garbage collection pauses
+import java.lang.management.ManagementFactory;
+import java.net.Socket; // Connect to the server
+import java.nio.CharBuffer;
+import java.util.ArrayList; // Flexible sized array
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Dictionary;
+import java.util.Enumeration;
+import java.util.Hashtable;
+import java.util.List;
+import java.util.NoSuchElementException; // Thrown in the game when the test stops
+import java.util.Random; // Each player has their own
+import java.util.Scanner; // Game keyboard
+import java.util.concurrent.CountDownLatch;
+import javax.management.NotificationEmitter; // Told about every garbage collection
+import javax.management.openmbean.CompositeData;
+import com.sun.management.GarbageCollectionNotificationInfo;
+import com.sun.management.ThreadMXBean; // Bytes allocated by every thread
+
+public class LoadTest
+{
+    final String PROMPT = "Input a command";
+    // mistyped commands, to use the suggestions
+    final String[] TYPOS = {"nroth", "pikup battery", "intreact keypad", "descripton", "dorp potato", "wset"};
+
+    String mode;
+    int port;
+    // the loaded station, every in-process game is copied from it
+    SpaceStationTextAdventure pack;
+    // names the server players choose from, they cannot look at the game
+    ArrayList<String> itemNames = new ArrayList<>();
+    ArrayList<String> interactNames = new ArrayList<>();
+
+    // while true turn times are kept, false while warming up
+    volatile boolean measuring = false;
+    volatile boolean stopping = false;
+    // garbage collection pauses in milliseconds while measuring
+    ArrayList<Long> pauses = new ArrayList<>();
+
+    class Player implements Readable {
+        // gives the game its commands, the game calls read when it wants the next line
+        Random random;
+        SpaceStationTextAdventure game;
+        Tail tail = new Tail();
+        // turn times in nanoseconds, kept in an array so timing does not allocate much
+        long[] turnTimes = new long[1024];
+        int turnCount = 0;
+        long bytesOut = 0;
+        int gamesPlayed = 0;
+        // when the last command was given, 0 if it was an enter or nothing has been given
+        long commandTime = 0;
+        // part of the line that did not fit in the Scanner's buffer last time
+        String pending = "";
+        Thread thread;
+
+        Player(long seed) {
+            random = new Random(seed);
+        }
+
+        @Override
+        public int read(CharBuffer buffer) {
+            if (!pending.isEmpty()) {
+                // still giving the Scanner the last line
+                return give(buffer);
+            }
+            // the game has finished the last command and printed the status
+            long now = System.nanoTime();
+            if (commandTime != 0 && measuring) {
+                recordTurn(now - commandTime);
+            }
+            if (stopping) {
+                // the game throws NoSuchElementException and the player's thread ends
+                return -1;
+            }
+            String line;
+            if (tail.endsWithPrompt()) {
+                line = nextCommand();
+                commandTime = System.nanoTime();
+            } else {
+                // introduction or a room sequence waiting for enter
+                line = "";
+                commandTime = 0;
+            }
+            pending = line + "\n";
+            return give(buffer);
+        }
+
+        int give(CharBuffer buffer) {
+            // as much of the pending line as fits
+            int length = Math.min(pending.length(), buffer.remaining());
+            buffer.put(pending, 0, length);
+            pending = pending.substring(length);
+            return length;
+        }
+
+        void endTurn() {
+            // times the command being waited on (if there is one) up to now
+            if (commandTime != 0 && measuring) {
+                recordTurn(System.nanoTime() - commandTime);
+            }
+            commandTime = 0;
+        }
+
+        void recordTurn(long nanoseconds) {
+            if (turnCount == turnTimes.length) {
+                turnTimes = Arrays.copyOf(turnTimes, turnTimes.length * 2);
+            }
+            turnTimes[turnCount++] = nanoseconds;
+        }
+
+        String nextCommand() {
+            // looks at the game, it is waiting for this so nothing is changing
+            int choice = random.nextInt(100);
+            if (choice < 40) {
+                Dictionary<String, String> directions = game.directionsIn(game.currentRoom);
+                ArrayList<String> names = Collections.list(directions.keys());
+                if (names.isEmpty() || choice < 8) {
+                    // walk into a wall
+                    return pick(Arrays.asList(game.DIRECTIONSLIST));
+                }
+                return pick(names);
+            } else if (choice < 55) {
+                return "pickup " + pickOr(game.itemsIn(game.currentRoom), "nothing");
+            } else if (choice < 65) {
+                return "drop " + pickOr(game.itemsIn(game.inventoryName), "nothing");
+            } else if (choice < 75) {
+                return "use " + pickOr(game.itemsIn(game.inventoryName), "nothing");
+            } else if (choice < 85) {
+                Dictionary<String, String[]> interacts = game.interactDictionary.get(game.currentRoom);
+                return "interact " + pickOr(Collections.list(interacts.keys()), "nothing");
+            } else if (choice < 92) {
+                return "description";
+            }
+            return TYPOS[random.nextInt(TYPOS.length)];
+        }
+
+        String pick(List<String> names) {
+            return names.get(random.nextInt(names.size()));
+        }
+
+        String pickOr(List<String> names, String none) {
+            return names.isEmpty() ? none : pick(names);
+        }
+
+        void play(SharedWorld sharedWorld, int number) {
+            // new games until the test stops
+            PrintStream out = new PrintStream(tail, false);
+            while (!stopping) {
+                game = new SpaceStationTextAdventure(pack, new Scanner(this), out);
+                // the same as a server player
+                game.console = true;
+                game.remote = true;
+                game.gameName = "player" + number;
+                if (sharedWorld != null) {
+                    game.joinSharedWorld(sharedWorld);
+                }
+                try {
+                    game.play();
+                    gamesPlayed++;
+                    // the command that ended the game took until now, not until the next game asks for one
+                    endTurn();
+                } catch (NoSuchElementException error) {
+                    // stopped
+                } finally {
+                    game.leaveSharedWorld();
+                }
+            }
+            bytesOut = tail.bytes;
+        }
+
+        void playServer(int number) {
+            // the same as play but through a connection, commands are made from the station's names
+            // the server closes the connection when a game ends, so connect again for the next one
+            while (!stopping) {
+                try (Socket socket = new Socket("localhost", port)) {
+                    socket.setTcpNoDelay(true);
+                    BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), "UTF-8"));
+                    PrintStream out = new PrintStream(socket.getOutputStream(), true, "UTF-8");
+                    commandTime = 0;
+                    String line;
+                    while (!stopping && (line = in.readLine()) != null) {
+                        bytesOut += line.length() + 1;
+                        long now = System.nanoTime();
+                        if (line.contains(PROMPT)) {
+                            if (commandTime != 0 && measuring) {
+                                recordTurn(now - commandTime);
+                            }
+                            out.println(nextServerCommand());
+                            commandTime = System.nanoTime();
+                        } else if (line.startsWith("Choose a station")) {
+                            out.println("1");
+                        } else if (line.toLowerCase().contains("press enter")) {
+                            // keeps timing the command if it started a room sequence
+                            out.println("");
+                        }
+                    }
+                    if (!stopping) {
+                        gamesPlayed++;
+                        // the server closed the connection after the command that ended the game
+                        endTurn();
+                    }
+                } catch (IOException error) {
+                    if (!stopping) {
+                        System.out.println("player " + number + " lost connection: " + error.getMessage());
+                    }
+                    return;
+                }
+            }
+        }
+
+        String nextServerCommand() {
+            int choice = random.nextInt(100);
+            if (choice < 40) {
+                return pack.DIRECTIONSLIST[random.nextInt(pack.DIRECTIONSLIST.length)];
+            } else if (choice < 55) {
+                return "pickup " + pick(itemNames);
+            } else if (choice < 65) {
+                return "drop " + pick(itemNames);
+            } else if (choice < 75) {
+                return "use " + pick(itemNames);
+            } else if (choice < 85) {
+                return "interact " + pick(interactNames);
+            } else if (choice < 92) {
+                return "description";
+            }
+            return TYPOS[random.nextInt(TYPOS.length)];
+        }
+    }
+
+    class Tail extends OutputStream {
+        // throws away what the game prints but counts it and keeps the end, to tell a command prompt
+        // from a "press enter to continue"
+        byte[] last = new byte[64];
+        int lastLength = 0;
+        long bytes = 0;
+
+        @Override
+        public void write(int b) {
+            write(new byte[] {(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] data, int offset, int length) {
+            bytes += length;
+            if (length >= last.length) {
+                System.arraycopy(data, offset + length - last.length, last, 0, last.length);
+                lastLength = last.length;
+                return;
+            }
+            int keep = Math.min(lastLength, last.length - length);
+            System.arraycopy(last, lastLength - keep, last, 0, keep);
+            System.arraycopy(data, offset, last, keep, length);
+            lastLength = keep + length;
+        }
+
+        boolean endsWithPrompt() {
+            // the prompt is the last line printed, with colour codes around it
+            return new String(last, 0, lastLength).contains(PROMPT);
+        }
+    }
+
+    LoadTest(String mode, int port) {
+        this.mode = mode;
+        this.port = port;
+        pack = new SpaceStationTextAdventure(new File("."), false);
+        itemNames.addAll(Collections.list(pack.itemDescriptionDictionary.keys()));
+        if (itemNames.isEmpty()) {
+            itemNames.add("potato");
+        }
+        Enumeration<String> rooms = pack.interactDictionary.keys();
+        while (rooms.hasMoreElements()) {
+            interactNames.addAll(Collections.list(pack.interactDictionary.get(rooms.nextElement()).keys()));
+        }
+        if (interactNames.isEmpty()) {
+            interactNames.add("keypad");
+        }
+        listenForPauses();
+    }
+
+    void listenForPauses() {
+        // keeps the length of every garbage collection while measuring
+        for (GarbageCollectorMXBean collector: ManagementFactory.getGarbageCollectorMXBeans()) {
+            if (!(collector instanceof NotificationEmitter)) {
+                continue;
+            }
+            ((NotificationEmitter) collector).addNotificationListener((notification, handback) -> {
+                if (!notification.getType().equals(GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION) || !measuring) {
+                    return;
+                }
+                GarbageCollectionNotificationInfo info = GarbageCollectionNotificationInfo.from((CompositeData) notification.getUserData());
+                if (info.getGcCause().equals("No GC")) {
+                    // a concurrent collector's cycle, it did not stop the game
+                    return;
+                }
+                synchronized (pauses) {
+                    pauses.add(info.getGcInfo().getDuration());
+                }
+            }, null, null);
+        }
+    }
+
+    void run(int playerCount, int seconds, boolean print) throws InterruptedException {
+        stopping = false;
+        measuring = false;
+        pauses.clear();
+        SharedWorld sharedWorld = mode.equals("shared") ? new SharedWorld(pack) : null;
+        Player[] players = new Player[playerCount];
+        CountDownLatch finished = new CountDownLatch(playerCount);
+        for (int i = 0; i < playerCount; i++) {
+            Player player = new Player(i + 1);
+            players[i] = player;
+            final int number = i + 1;
+            // a server game is played by its own thread too
+            player.thread = new Thread(() -> {
+                try {
+                    if (mode.equals("server")) {
+                        player.playServer(number);
+                    } else {
+                        player.play(sharedWorld, number);
+                    }
+                } finally {
+                    finished.countDown();
+                }
+            }, "player " + number);
+            player.thread.start();
+        }
+
+        // a second for the players to get through the introduction before timing
+        Thread.sleep(1000);
+        Hashtable<Long, Long> allocatedBefore = allocatedByThread();
+        long startTime = System.nanoTime();
+        measuring = true;
+        Thread.sleep(seconds * 1000L);
+        measuring = false;
+        double elapsed = (System.nanoTime() - startTime) / 1e9;
+        long allocated = 0;
+        Hashtable<Long, Long> allocatedAfter = allocatedByThread();
+        Enumeration<Long> threadIds = allocatedAfter.keys();
+        while (threadIds.hasMoreElements()) {
+            long id = threadIds.nextElement();
+            // a thread started while measuring allocated all of its bytes while measuring
+            allocated += allocatedAfter.get(id) - allocatedBefore.getOrDefault(id, 0L);
+        }
+        stopping = true;
+        finished.await();
+
+        if (!print) {
+            return;
+        }
+        // every turn time in one sorted array
+        int turns = 0;
+        long bytes = 0;
+        int games = 0;
+        for (Player player: players) {
+            turns += player.turnCount;
+            bytes += player.bytesOut;
+            games += player.gamesPlayed;
+        }
+        long[] times = new long[turns];
+        int position = 0;
+        for (Player player: players) {
+            System.arraycopy(player.turnTimes, 0, times, position, player.turnCount);
+            position += player.turnCount;
+        }
+        Arrays.sort(times);
+        long pauseTotal = 0;
+        long pauseMax = 0;
+        synchronized (pauses) {
+            for (long pause: pauses) {
+                pauseTotal += pause;
+                pauseMax = Math.max(pauseMax, pause);
+            }
+        }
+        String line = String.format("%7d %12.0f %10.1f %10.1f %10.1f",
+            playerCount, turns / elapsed, percentile(times, 0.50), percentile(times, 0.99), percentile(times, 0.999));
+        if (mode.equals("server")) {
+            line += String.format(" %10s %16s", "-", "-");
+        } else {
+            line += String.format(" %10.1f %5d/%4d/%5d", allocated / elapsed / 1e6, pauses.size(), pauseMax, pauseTotal);
+        }
+        line += String.format(" %8.0f %6d", turns == 0 ? 0.0 : (double) bytes / turns, games);
+        System.out.println(line);
+    }
+
+    Hashtable<Long, Long> allocatedByThread() {
+        // bytes allocated so far by every thread, not just the players: the crew's parallel stream runs in
+        // the ForkJoin common pool, and the garbage collection listener and anything else the games start count too
+        // a thread that ends while measuring takes its bytes with it, so this can be a little low
+        ThreadMXBean threads = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long[] ids = threads.getAllThreadIds();
+        long[] bytes = threads.getThreadAllocatedBytes(ids);
+        Hashtable<Long, Long> allocated = new Hashtable<>();
+        for (int i = 0; i < ids.length; i++) {
+            if (bytes[i] != -1) {
+                // -1 for a thread that has already ended
+                allocated.put(ids[i], bytes[i]);
+            }
+        }
+        return allocated;
+    }
+
+    static double percentile(long[] sorted, double fraction) {
+        // microseconds
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.min(sorted.length - 1, Math.round(fraction * (sorted.length - 1)));
+        return sorted[index] / 1000.0;
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        // java LoadTest (private/shared/server) (most players) (seconds for each number of players) (server port)
+        String mode = "private";
+        int maxPlayers = 16;
+        int seconds = 5;
+        int port = 4000;
+        if (args.length > 0) {
+            mode = args[0];
+        }
+        if (args.length > 1) {
+            maxPlayers = Integer.parseInt(args[1]);
+        }
+        if (args.length > 2) {
+            seconds = Integer.parseInt(args[2]);
+        }
+        if (args.length > 3) {
+            port = Integer.parseInt(args[3]);
+        }
+        if (!mode.equals("private") && !mode.equals("shared") && !mode.equals("server")) {
+            System.out.println("the first argument should be private, shared or server");
+            return;
+        }
+        LoadTest test = new LoadTest(mode, port);
+        System.out.println(mode + " games, " + seconds + " seconds for each number of players, "
+            + Runtime.getRuntime().availableProcessors() + " processors");
+        System.out.println("players turns/second    p50 (us)   p99 (us) p99.9 (us) alloc MB/s  gc n/max/total ms  bytes/turn games");
+        // the first numbers would be slower while the JIT compiles the game, so play for a while first
+        test.run(maxPlayers, seconds, false);
+        for (int players = 1; players <= maxPlayers; players *= 2) {
+            test.run(players, seconds, true);
+        }
+    }
+}
@@ -0,0 +1,247 @@
+/**
+ * Reports from the event logs: which rooms are visited most, which commands fail most,
+ * and how many turns it takes to complete the game.
+ *
+ * java LogAnalytics (files or folders...)   the logs folder if nothing is given
+ *
+ * every file (events.log and the rotated .log.gz files) is read on its own thread one line at a time,
+ * so memory use does not depend on how big the logs are. the totals from each file are added together at the end
+ * lines that are not events (cut short, or changed by hand) are counted and skipped
+ *
+ * @author agent
+ * @version 19/10/26
+ */
+
+import java.io.BufferedReader; // Read one line at a time
+import java.io.File; // Get files
+import java.io.FileInputStream;
+import java.io.IOException; // Handle file exceptions
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList; // Flexible sized array
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap; // Keeps turn counts in order for the median
+import java.util.zip.GZIPInputStream; // Read rotated logs
+
+public class LogAnalytics
+{
+    // stops a log full of random typing from using up memory, anything after this many different
+    // failing commands is counted as "(other)", in each file and in the totals of every file
+    static final int MAXFAILINGCOMMANDS = 10000;
+
+    long events = 0;
+    long files = 0;
+    HashMap<String, long[]> commandTypes = new HashMap<>(); // type -> {count, failed}
+    HashMap<String, Long> roomVisits = new HashMap<>();
+    HashMap<String, Long> failures = new HashMap<>(); // outcome -> count
+    HashMap<String, Long> failingCommands = new HashMap<>(); // "type instruction" -> count
+    TreeMap<Integer, Long> turnsToComplete = new TreeMap<>();
+    long gamesLost = 0;
+    long eventsDropped = 0; // events the log had to throw away, these are missing from the totals
+    long badLines = 0; // lines that could not be read as events
+
+    static LogAnalytics analyseFile(File file) {
+        LogAnalytics totals = new LogAnalytics();
+        totals.files = 1;
+        try (InputStream fileIn = new FileInputStream(file)) {
+            InputStream in = fileIn;
+            if (file.getName().endsWith(".gz")) {
+                in = new GZIPInputStream(fileIn, 64 * 1024);
+            }
+            BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), 64 * 1024);
+            String line;
+            while ((line = reader.readLine()) != null) {
+                totals.addEvent(line);
+            }
+        } catch (IOException error) {
+            throw new UncheckedIOException("could not read " + file, error);
+        }
+        return totals;
+    }
+
+    void addEvent(String line) {
+        // time, game, turn, type, instruction, room before, room after, success, outcome
+        String[] columns = line.split("\t", -1);
+        if (columns[0].equals("time")) {
+            // header
+            return;
+        }
+        if (columns.length != 9) {
+            badLines++;
+            return;
+        }
+        String type = columns[3];
+        int turn;
+        try {
+            if (type.equals("DROPPED")) {
+                // written by the log itself, outcome starts with how many events were dropped
+                eventsDropped += Long.parseLong(columns[8].split(" ")[0]);
+                return;
+            }
+            turn = Integer.parseInt(columns[2]);
+        } catch (NumberFormatException error) {
+            badLines++;
+            return;
+        }
+        events++;
+        String instruction = columns[4];
+        String roomBefore = columns[5];
+        String roomAfter = columns[6];
+        boolean success = Boolean.parseBoolean(columns[7]);
+        String outcome = columns[8];
+
+        long[] typeCounts = commandTypes.computeIfAbsent(type, key -> new long[2]);
+        typeCounts[0]++;
+        if (!roomAfter.equals(roomBefore)) {
+            roomVisits.merge(roomAfter, 1L, Long::sum);
+        }
+        if (!success) {
+            typeCounts[1]++;
+            failures.merge(outcome, 1L, Long::sum);
+            addFailingCommand(type + " " + instruction, 1);
+        }
+        if (outcome.equals("COMPLETEGAME")) {
+            // turn is the number of turns before the command, the winning command is one more
+            int turns = turn + 1;
+            turnsToComplete.merge(turns, 1L, Long::sum);
+        } else if (type.equals("GAMEOVER")) {
+            gamesLost++;
+        }
+    }
+
+    LogAnalytics add(LogAnalytics other) {
+        // adds the other totals into these ones
+        events += other.events;
+        files += other.files;
+        for (Map.Entry<String, long[]> entry: other.commandTypes.entrySet()) {
+            long[] typeCounts = commandTypes.computeIfAbsent(entry.getKey(), key -> new long[2]);
+            typeCounts[0] += entry.getValue()[0];
+            typeCounts[1] += entry.getValue()[1];
+        }
+        other.roomVisits.forEach((room, count) -> roomVisits.merge(room, count, Long::sum));
+        other.failures.forEach((outcome, count) -> failures.merge(outcome, count, Long::sum));
+        other.failingCommands.forEach((command, count) -> addFailingCommand(command, count));
+        other.turnsToComplete.forEach((turns, count) -> turnsToComplete.merge(turns, count, Long::sum));
+        gamesLost += other.gamesLost;
+        eventsDropped += other.eventsDropped;
+        badLines += other.badLines;
+        return this;
+    }
+
+    void addFailingCommand(String command, long count) {
+        if (failingCommands.size() >= MAXFAILINGCOMMANDS && !failingCommands.containsKey(command)) {
+            command = "(other)";
+        }
+        failingCommands.merge(command, count, Long::sum);
+    }
+
+    static ArrayList<Map.Entry<String, Long>> mostCommon(HashMap<String, Long> counts, int limit) {
+        ArrayList<Map.Entry<String, Long>> entries = new ArrayList<>(counts.entrySet());
+        entries.sort((a, b) -> Long.compare(b.getValue(), a.getValue()));
+        return new ArrayList<>(entries.subList(0, Math.min(limit, entries.size())));
+    }
+
+    void printReport() {
+        System.out.println(events + " events in " + files + " files");
+        if (eventsDropped > 0) {
+            System.out.println(eventsDropped + " events were dropped when the log was busy, they are not in the totals");
+        }
+        if (badLines > 0) {
+            System.out.println(badLines + " lines were not events and were skipped");
+        }
+        System.out.println("");
+
+        System.out.println("Commands by type (count, failed):");
+        ArrayList<String> types = new ArrayList<>(commandTypes.keySet());
+        Collections.sort(types);
+        for (String type: types) {
+            long[] typeCounts = commandTypes.get(type);
+            System.out.printf("  %-10s %10d %10d (%.1f%%)%n", type, typeCounts[0], typeCounts[1], 100.0 * typeCounts[1] / typeCounts[0]);
+        }
+        System.out.println("");
+
+        System.out.println("Room visits:");
+        ArrayList<Map.Entry<String, Long>> rooms = mostCommon(roomVisits, roomVisits.size());
+        long mostVisits = rooms.isEmpty() ? 1 : rooms.get(0).getValue();
+        for (Map.Entry<String, Long> room: rooms) {
+            // bar of up to 40 #s so busy rooms stand out
+            int bar = (int) Math.max(1, 40 * room.getValue() / mostVisits);
+            System.out.printf("  %-15s %10d %s%n", room.getKey(), room.getValue(), "#".repeat(bar));
+        }
+        System.out.println("");
+
+        System.out.println("Most common failures:");
+        for (Map.Entry<String, Long> failure: mostCommon(failures, 10)) {
+            System.out.printf("  %10d  %s%n", failure.getValue(), failure.getKey());
+        }
+        System.out.println("");
+
+        System.out.println("Most common failing commands:");
+        for (Map.Entry<String, Long> command: mostCommon(failingCommands, 10)) {
+            System.out.printf("  %10d  %s%n", command.getValue(), command.getKey());
+        }
+        System.out.println("");
+
+        long completed = 0;
+        long totalTurns = 0;
+        for (Map.Entry<Integer, Long> entry: turnsToComplete.entrySet()) {
+            completed += entry.getValue();
+            totalTurns += entry.getKey() * entry.getValue();
+        }
+        System.out.println("Games completed: " + completed + ", games lost: " + gamesLost);
+        if (completed > 0) {
+            // walk the counts in order until half the games are passed
+            long seen = 0;
+            int median = 0;
+            for (Map.Entry<Integer, Long> entry: turnsToComplete.entrySet()) {
+                seen += entry.getValue();
+                if (seen * 2 >= completed) {
+                    median = entry.getKey();
+                    break;
+                }
+            }
+            System.out.printf("Turns to complete: fewest %d, median %d, average %.1f, most %d%n",
+                turnsToComplete.firstKey(), median, (double) totalTurns / completed, turnsToComplete.lastKey());
+        }
+    }
+
+    static void findLogs(File file, ArrayList<File> logs) {
+        if (file.isDirectory()) {
+            File[] children = file.listFiles();
+            Arrays.sort(children);
+            for (File child: children) {
+                findLogs(child, logs);
+            }
+        } else if (file.getName().endsWith(".log") || file.getName().endsWith(".log.gz")) {
+            logs.add(file);
+        }
+    }
+
+    public static void main(String[] args) {
+        ArrayList<File> logs = new ArrayList<>();
+        if (args.length == 0) {
+            findLogs(new File("logs"), logs);
+        }
+        for (String arg: args) {
+            findLogs(new File(arg), logs);
+        }
+        if (logs.isEmpty()) {
+            System.out.println("no log files found");
+            return;
+        }
+        long startTime = System.nanoTime();
+        // one file per task, the totals are added together as tasks finish
+        LogAnalytics totals = logs.parallelStream()
+            .map(LogAnalytics::analyseFile)
+            .reduce(new LogAnalytics(), (a, b) -> new LogAnalytics().add(a).add(b));
+        long time = (System.nanoTime() - startTime) / 1000000;
+        totals.printReport();
+        System.out.println("");
+        System.out.println("read in " + time + "ms");
+    }
+}
@@ -0,0 +1,352 @@
+/**
+ * Rules from the Rules folder that change what happens when the player does something.
+ *
+ * each line of a rules file (after the first, which is a comment) is one rule:
+ * on (trigger) (name) if (condition) and (condition) ... then (action) and (action) ...
+ * the "if" part can be left out. for example:
+ * on use battery if in EngineRoom and holding battery then open up to ControlRoom and consume battery
+ *
+ * triggers:   use (item), interact (name), pickup (item), drop (item), enter (room)
+ * conditions: in (room), holding (item), not holding (item), room has (item), after turn (number), before turn (number)
+ * actions:    open (direction) [from (room)] to (room), close (direction) [from (room)], consume (item), give (item),
+ *             place (item), move to (room), say "(text)", complete game, game over
+ * open and close use the rule's "in" room if "from" is not given, or the room the player is in if there is neither
+ * move to enters the room the same way as walking in, so its enter rules and room sequence happen too
+ *
+ * rules are compiled once when the station is loaded: each condition and action becomes a lambda and they are
+ * joined into one test and one action for the rule, so nothing is split or compared while playing
+ * rules are kept in lists by trigger, name and room, so finding the rules for a command is one lookup for
+ * the player's room and one for rules without an "in", however many rules there are
+ * for use and interact a rule that runs replaces what the item or interactable would normally do,
+ * for the other triggers it happens as well. only the first rule whose conditions are true runs
+ *
+ * @author agent
+ * @version 19/10/26
+ */
+
+import java.io.File; // Rules folder
+import java.io.IOException; // Handle file exceptions
+import java.util.ArrayList; // Flexible sized array
+import java.util.Arrays;
+import java.util.Dictionary;
+import java.util.Hashtable;
+import java.util.Scanner; // Read files
+import java.util.function.Consumer; // Compiled actions
+import java.util.function.Predicate; // Compiled conditions
+
+public class Rules
+{
+    class Rule {
+        String text; // as written in the file
+        String trigger;
+        String name;
+        boolean onlySays = true; // every action is a say, so the rule never changes the game
+        Predicate<SpaceStationTextAdventure> condition;
+        Consumer<SpaceStationTextAdventure> action;
+    }
+
+    static final String[] TRIGGERS = {"use", "interact", "pickup", "drop", "enter"};
+    // room name used in the index for rules without an "in" condition
+    static final String ANYROOM = "*";
+
+    // rules by trigger, name and room (see key), in the order they are written
+    Dictionary<String, ArrayList<Rule>> index = new Hashtable<>();
+    int size = 0;
+    // every item a rule is triggered by, checks or changes, in lower case
+    ArrayList<String> items = new ArrayList<>();
+    // mistakes found in the files, a rule with a mistake is left out
+    ArrayList<String> problems = new ArrayList<>();
+
+    static String key(String trigger, String name, String room) {
+        return trigger + "\t" + name.toLowerCase() + "\t" + room;
+    }
+
+    boolean fire(SpaceStationTextAdventure game, String trigger, String name) {
+        // runs the first rule for the trigger whose conditions are true, returns false if none ran
+        // rules for the player's room are tried before rules for any room
+        return fire(game, index.get(key(trigger, name, game.currentRoom))) || fire(game, index.get(key(trigger, name, ANYROOM)));
+    }
+
+    boolean fire(SpaceStationTextAdventure game, ArrayList<Rule> rules) {
+        if (rules == null) {
+            return false;
+        }
+        for (Rule rule: rules) {
+            if (rule.condition.test(game)) {
+                rule.action.accept(game);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    boolean mentions(String item) {
+        return items.contains(item.toLowerCase());
+    }
+
+    void addMentioned(String item) {
+        if (!items.contains(item.toLowerCase())) {
+            items.add(item.toLowerCase());
+        }
+    }
+
+    static Rules load(SpaceStationTextAdventure game, File folder) {
+        // every file in the folder, an empty set of rules if there is no folder
+        Rules rules = new Rules();
+        File[] files = folder.listFiles();
+        if (files == null) {
+            return rules;
+        }
+        Arrays.sort(files); // same order every time
+        for (File file: files) {
+            String fileName = "Rules/" + file.getName();
+            Scanner readFile;
+            try {
+                readFile = new Scanner(file);
+            } catch (IOException error) {
+                rules.problems.add(fileName + ": could not be opened (" + error.getClass().getCanonicalName() + ")");
+                continue;
+            }
+            int lineNumber = 0;
+            while (readFile.hasNextLine()) {
+                String line = readFile.nextLine().trim();
+                lineNumber++;
+                if (lineNumber == 1 || line.isEmpty()) {
+                    // comment in file
+                    continue;
+                }
+                rules.compile(game, fileName + " line " + lineNumber, line);
+            }
+            readFile.close();
+        }
+        return rules;
+    }
+
+    void compile(SpaceStationTextAdventure game, String where, String line) {
+        // turns one line into a rule and adds it to the index, or adds a problem
+        if (!line.startsWith("on ")) {
+            problems.add(where + ": a rule starts with 'on'");
+            return;
+        }
+        int thenIndex = indexOutsideQuotes(line, " then ");
+        if (thenIndex == -1) {
+            problems.add(where + ": a rule needs 'then' and something to do");
+            return;
+        }
+        String head = line.substring(3, thenIndex);
+        String conditionText = "";
+        int ifIndex = head.indexOf(" if ");
+        if (ifIndex != -1) {
+            conditionText = head.substring(ifIndex + 4);
+            head = head.substring(0, ifIndex);
+        }
+        int space = head.indexOf(' ');
+        String trigger = space == -1 ? head : head.substring(0, space);
+        String name = space == -1 ? "" : head.substring(space + 1).trim();
+        if (!Arrays.asList(TRIGGERS).contains(trigger)) {
+            problems.add(where + ": '" + trigger + "' is not a trigger, use one of " + String.join(", ", TRIGGERS));
+            return;
+        }
+        if (name.isEmpty()) {
+            problems.add(where + ": '" + trigger + "' needs a name after it");
+            return;
+        }
+        if (trigger.equals("enter") && !roomExists(game, name)) {
+            problems.add(where + ": room '" + name + "' does not exist");
+            return;
+        }
+
+        if (!trigger.equals("enter") && !trigger.equals("interact")) {
+            addMentioned(name);
+        }
+        Rule rule = new Rule();
+        rule.text = line;
+        rule.trigger = trigger;
+        rule.name = name;
+        // entering a room can only happen in that room
+        String room = trigger.equals("enter") ? name : null;
+        Predicate<SpaceStationTextAdventure> condition = adventure -> true;
+        if (!conditionText.isEmpty()) {
+            for (String part: splitOutsideQuotes(conditionText, " and ")) {
+                part = part.trim();
+                if (part.startsWith("in ")) {
+                    // not checked while playing, the rule is only looked up in this room
+                    String inRoom = part.substring(3).trim();
+                    if (!roomExists(game, inRoom)) {
+                        problems.add(where + ": room '" + inRoom + "' does not exist");
+                        return;
+                    }
+                    if (room != null && !room.equals(inRoom)) {
+                        problems.add(where + ": the rule can only happen in one room");
+                        return;
+                    }
+                    room = inRoom;
+                    continue;
+                }
+                Predicate<SpaceStationTextAdventure> next = compileCondition(part);
+                if (next == null) {
+                    problems.add(where + ": '" + part + "' is not a condition");
+                    return;
+                }
+                condition = condition.and(next);
+            }
+        }
+        final String ruleRoom = room;
+        Consumer<SpaceStationTextAdventure> action = adventure -> {};
+        for (String part: splitOutsideQuotes(line.substring(thenIndex + 6), " and ")) {
+            part = part.trim();
+            Consumer<SpaceStationTextAdventure> next = compileAction(game, where, part, ruleRoom);
+            if (next == null) {
+                // the problem has been added
+                return;
+            }
+            action = action.andThen(next);
+            if (!part.startsWith("say ")) {
+                rule.onlySays = false;
+            }
+        }
+        rule.condition = condition;
+        rule.action = action;
+
+        String key = key(trigger, name, room == null ? ANYROOM : room);
+        ArrayList<Rule> rules = index.get(key);
+        if (rules == null) {
+            rules = new ArrayList<>();
+            index.put(key, rules);
+        }
+        rules.add(rule);
+        size++;
+    }
+
+    Predicate<SpaceStationTextAdventure> compileCondition(String text) {
+        // null if the condition is not understood
+        if (text.startsWith("not holding ")) {
+            String item = text.substring(12).trim();
+            addMentioned(item);
+            return adventure -> !adventure.hasItem(item);
+        } else if (text.startsWith("holding ")) {
+            String item = text.substring(8).trim();
+            addMentioned(item);
+            return adventure -> adventure.hasItem(item);
+        } else if (text.startsWith("room has ")) {
+            String item = text.substring(9).trim();
+            addMentioned(item);
+            return adventure -> adventure.itemsIn(adventure.currentRoom).contains(item);
+        } else if (text.startsWith("after turn ") || text.startsWith("before turn ")) {
+            boolean after = text.startsWith("after");
+            int number;
+            try {
+                number = Integer.parseInt(text.substring(after ? 11 : 12).trim());
+            } catch (NumberFormatException error) {
+                return null;
+            }
+            if (after) {
+                return adventure -> adventure.turn > number;
+            }
+            return adventure -> adventure.turn < number;
+        }
+        return null;
+    }
+
+    Consumer<SpaceStationTextAdventure> compileAction(SpaceStationTextAdventure game, String where, String text, String ruleRoom) {
+        // null if the action is not understood, the problem is added here so it can say what was wrong
+        if (text.startsWith("open ") || text.startsWith("close ")) {
+            boolean open = text.startsWith("open ");
+            String rest = text.substring(open ? 5 : 6).trim();
+            // direction [from room] [to room]
+            String leadsTo = null;
+            int toIndex = rest.indexOf(" to ");
+            if (toIndex != -1) {
+                leadsTo = rest.substring(toIndex + 4).trim();
+                rest = rest.substring(0, toIndex);
+            }
+            String fromRoom = ruleRoom;
+            int fromIndex = rest.indexOf(" from ");
+            if (fromIndex != -1) {
+                fromRoom = rest.substring(fromIndex + 6).trim();
+                rest = rest.substring(0, fromIndex);
+            }
+            String direction = rest.trim().toLowerCase();
+            if (!Arrays.asList(game.DIRECTIONSLIST).contains(direction)) {
+                problems.add(where + ": '" + direction + "' is not a direction");
+                return null;
+            }
+            if (fromRoom != null && !roomExists(game, fromRoom)) {
+                problems.add(where + ": room '" + fromRoom + "' does not exist");
+                return null;
+            }
+            if (open && (leadsTo == null || !roomExists(game, leadsTo))) {
+                problems.add(where + ": open needs 'to' and a room that exists");
+                return null;
+            }
+            final String from = fromRoom;
+            final String to = leadsTo;
+            if (open) {
+                return adventure -> adventure.addDirection(from == null ? adventure.currentRoom : from, direction, to);
+            }
+            return adventure -> adventure.delDirection(from == null ? adventure.currentRoom : from, direction);
+        } else if (text.startsWith("consume ")) {
+            String item = text.substring(8).trim();
+            addMentioned(item);
+            return adventure -> adventure.removeInventory(item);
+        } else if (text.startsWith("give ")) {
+            String item = text.substring(5).trim();
+            addMentioned(item);
+            return adventure -> adventure.addInventory(item);
+        } else if (text.startsWith("place ")) {
+            String item = text.substring(6).trim();
+            addMentioned(item);
+            return adventure -> adventure.addItem(adventure.currentRoom, item);
+        } else if (text.startsWith("move to ")) {
+            String room = text.substring(8).trim();
+            if (!roomExists(game, room)) {
+                problems.add(where + ": room '" + room + "' does not exist");
+                return null;
+            }
+            return adventure -> adventure.enterRoom(room);
+        } else if (text.startsWith("say ")) {
+            String said = text.substring(4).trim();
+            if (said.length() < 2 || !said.startsWith("\"") || !said.endsWith("\"")) {
+                problems.add(where + ": the text after say needs to be in \"quotes\"");
+                return null;
+            }
+            String message = said.substring(1, said.length() - 1);
+            return adventure -> adventure.print(message, "YELLOW");
+        } else if (text.equals("complete game")) {
+            return adventure -> adventure.gameComplete = true;
+        } else if (text.equals("game over")) {
+            return adventure -> adventure.gameOver = true;
+        }
+        problems.add(where + ": '" + text + "' is not an action");
+        return null;
+    }
+
+    static boolean roomExists(SpaceStationTextAdventure game, String room) {
+        return game.roomDictionary.get(room) != null;
+    }
+
+    static int indexOutsideQuotes(String text, String find) {
+        // first place find is in the text that is not inside "quotes", -1 if none
+        boolean quoted = false;
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) == '"') {
+                quoted = !quoted;
+            } else if (!quoted && text.startsWith(find, i)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    static ArrayList<String> splitOutsideQuotes(String text, String separator) {
+        // so a say can have "and" in its text
+        ArrayList<String> parts = new ArrayList<>();
+        int index;
+        while ((index = indexOutsideQuotes(text, separator)) != -1) {
+            parts.add(text.substring(0, index));
+            text = text.substring(index + separator.length());
+        }
+        parts.add(text);
+        return parts;
+    }
+}
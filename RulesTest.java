@@ -0,0 +1,133 @@
+/**
+ * Checks rules are compiled from their text the right way, run the right way, and that mistakes are found.
+ *
+ * uses the station in the project folder, so run it from there: "java RulesTest"
+ * it prints every check that failed and exits with 1
+ *
+ * @author agent
+ * @version 19/10/26
+ */
+
+import java.io.File; // Station folder
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.Scanner; // Game keyboard
+
+public class RulesTest extends TestCheck
+{
+    SpaceStationTextAdventure pack = new SpaceStationTextAdventure(new File("."), false);
+
+    SpaceStationTextAdventure newGame(String... lines) {
+        // a game that only has the rules given, nothing is typed or shown
+        SpaceStationTextAdventure game = new SpaceStationTextAdventure(pack, new Scanner(""), new PrintStream(OutputStream.nullOutputStream()));
+        game.rules = new Rules();
+        for (String line: lines) {
+            game.rules.compile(game, "test", line);
+        }
+        check(game.rules.problems.isEmpty(), "no problems in " + String.join(" / ", lines) + " " + game.rules.problems);
+        return game;
+    }
+
+    void checkStationRules() {
+        Rules rules = Rules.load(pack, new File("Rules"));
+        check(rules.problems.isEmpty(), "the station's own rules have no problems " + rules.problems);
+        check(rules.size == 3, "the station's three rules are loaded");
+    }
+
+    void checkConditionsAndActions() {
+        SpaceStationTextAdventure game = newGame(
+            "on use battery if in EngineRoom and holding battery then open up from EngineRoom to ControlRoom and consume battery");
+        check(game.rules.size == 1, "the rule is added");
+        check(game.rules.index.get(Rules.key("use", "Battery", "EngineRoom")) != null, "the rule is kept under its trigger, name and room");
+        check(game.rules.mentions("Battery"), "the rule's item is mentioned, so the crew and solver leave it alone");
+        game.currentRoom = "EngineRoom";
+        check(!game.rules.fire(game, "use", "battery"), "the rule does not run without the battery");
+        game.addInventory("battery");
+        game.currentRoom = "Hub";
+        check(!game.rules.fire(game, "use", "battery"), "the rule does not run outside its room");
+        game.currentRoom = "EngineRoom";
+        check(game.rules.fire(game, "use", "battery"), "the rule runs when its conditions are true");
+        check("ControlRoom".equals(game.roomInDirection("EngineRoom", "up")), "open made the direction");
+        check(!game.hasItem("battery"), "consume took the battery");
+        check(pack.roomInDirection("EngineRoom", "up") == null, "the loaded station is not changed");
+    }
+
+    void checkOrder() {
+        // rules for the player's room come before rules for any room, and only the first true rule runs
+        SpaceStationTextAdventure game = newGame(
+            "on pickup spoon then give fork",
+            "on pickup spoon if in Hub and after turn 5 then give knife",
+            "on pickup spoon if in Hub then give cup");
+        game.currentRoom = "Hub";
+        game.rules.fire(game, "pickup", "spoon");
+        check(game.hasItem("cup") && !game.hasItem("knife") && !game.hasItem("fork"), "only the first true rule for the room runs");
+        game.turn = 6;
+        game.rules.fire(game, "pickup", "spoon");
+        check(game.hasItem("knife"), "after turn is checked while playing");
+        game.currentRoom = "Entrance";
+        game.rules.fire(game, "pickup", "spoon");
+        check(game.hasItem("fork"), "a rule without a room runs anywhere");
+    }
+
+    void checkSay() {
+        SpaceStationTextAdventure game = newGame("on drop potato then say \"salt and pepper then chips\"");
+        Rules.Rule rule = game.rules.index.get(Rules.key("drop", "potato", Rules.ANYROOM)).get(0);
+        check(rule.onlySays, "a rule that only says something does not change the game");
+        check(!newGame("on drop potato then say \"oops\" and game over").rules.index.get(Rules.key("drop", "potato", Rules.ANYROOM)).get(0).onlySays,
+            "a rule that also ends the game changes it");
+    }
+
+    void checkMoveTo() {
+        // move to goes through the same way in as walking, so enter rules happen too
+        SpaceStationTextAdventure game = newGame("on use potato then move to Hub", "on enter Hub then give spoon");
+        game.rules.fire(game, "use", "potato");
+        check("Hub".equals(game.currentRoom), "move to moved the player");
+        check(game.hasItem("spoon"), "move to ran the enter rule of the room");
+
+        // rooms that send the player to each other stop instead of going round forever
+        game = newGame("on enter Hub then move to PotatoFarm", "on enter PotatoFarm then move to Hub");
+        game.enterRoom("Hub");
+        check(game.roomsEntered == 0, "entering rooms stops when rules go round in a circle");
+    }
+
+    void checkEndings() {
+        SpaceStationTextAdventure game = newGame("on use potato then complete game", "on drop potato then game over");
+        game.rules.fire(game, "use", "potato");
+        check(game.gameComplete, "complete game completes the game");
+        game.rules.fire(game, "drop", "potato");
+        check(game.gameOver, "game over ends the game");
+    }
+
+    void checkMistake(String line) {
+        // a line with a mistake is left out and says why
+        Rules rules = new Rules();
+        rules.compile(pack, "test", line);
+        check(rules.size == 0 && rules.problems.size() == 1, "one problem and no rule for: " + line);
+    }
+
+    public static void main(String[] args) {
+        RulesTest test = new RulesTest();
+        test.checkStationRules();
+        test.checkConditionsAndActions();
+        test.checkOrder();
+        test.checkSay();
+        test.checkMoveTo();
+        test.checkEndings();
+        test.checkMistake("use battery then consume battery");
+        test.checkMistake("on use battery consume battery");
+        test.checkMistake("on jump battery then consume battery");
+        test.checkMistake("on use then consume battery");
+        test.checkMistake("on enter Moon then say \"hello\"");
+        test.checkMistake("on use battery if in Moon then consume battery");
+        test.checkMistake("on enter Hub if in Entrance then say \"hello\"");
+        test.checkMistake("on use battery if sunny then consume battery");
+        test.checkMistake("on use battery if after turn soon then consume battery");
+        test.checkMistake("on use battery then open sideways to Hub");
+        test.checkMistake("on use battery then open up");
+        test.checkMistake("on use battery then close up from Moon");
+        test.checkMistake("on use battery then move to Moon");
+        test.checkMistake("on use battery then say hello");
+        test.checkMistake("on use battery then fly away");
+        test.finish();
+    }
+}
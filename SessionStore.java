@@ -0,0 +1,233 @@
+/**
+ * Saves an idle server game to disk so its memory can be freed, and loads it back on the next command.
+ *
+ * only what is different from the loaded world is saved, one line each, tab separated:
+ * room (current room), turn, items (a room or the inventory and every item in it),
+ * directions (a room and every direction and where it leads), opened (interactable and turn), event (timed event)
+ * the shared station's rooms are not saved because they belong to every player
+ * every line is checked when it is loaded back, a damaged saved game starts the station again instead
+ *
+ * @author agent
+ * @version 19/10/26
+ */
+
+import java.io.BufferedReader; // Read the saved game
+import java.io.BufferedWriter; // Write the saved game
+import java.io.File; // Get files
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException; // Handle file exceptions
+import java.util.ArrayList; // Flexible sized array
+import java.util.Arrays;
+import java.util.Dictionary;
+import java.util.Enumeration;
+import java.util.Hashtable;
+
+public class SessionStore
+{
+    static long estimateMemory(SpaceStationTextAdventure game) {
+        // memory that saving the game would free, rough like WorldRegistry's estimates
+        // a saved game has already let go of its rooms and events
+        long size = WorldRegistry.estimateMemory(game.directionDictionary) + WorldRegistry.estimateMemory(game.itemsDictionary)
+            + WorldRegistry.estimateMemory(game.interactOpenedTurn);
+        if (game.timingWheel != null) {
+            size += game.timingWheel.estimateMemory();
+        }
+        if (game.broadcast != null) {
+            size += game.broadcast.estimateMemory();
+        }
+        return size;
+    }
+
+    static void save(SpaceStationTextAdventure game, File file) throws IOException {
+        SpaceStationTextAdventure pack = game.pack;
+        file.getParentFile().mkdirs();
+        try (BufferedWriter writer = new BufferedWriter(new FileWriter(file))) {
+            writeLine(writer, "room", game.currentRoom);
+            writeLine(writer, "turn", String.valueOf(game.turn));
+            if (game.sharedWorld == null) {
+                // rooms the player has changed
+                Enumeration<String> rooms = pack.itemsDictionary.keys();
+                while (rooms.hasMoreElements()) {
+                    String room = rooms.nextElement();
+                    ArrayList<String> items = game.itemsDictionary.get(room);
+                    if (!items.equals(pack.itemsDictionary.get(room))) {
+                        ArrayList<String> line = new ArrayList<>();
+                        line.add("items");
+                        line.add(room);
+                        line.addAll(items);
+                        writeLine(writer, line.toArray(new String[0]));
+                    }
+                }
+                rooms = pack.directionDictionary.keys();
+                while (rooms.hasMoreElements()) {
+                    String room = rooms.nextElement();
+                    Dictionary<String, String> directions = game.directionDictionary.get(room);
+                    if (!directions.equals(pack.directionDictionary.get(room))) {
+                        ArrayList<String> line = new ArrayList<>();
+                        line.add("directions");
+                        line.add(room);
+                        Enumeration<String> keys = directions.keys();
+                        while (keys.hasMoreElements()) {
+                            String direction = keys.nextElement();
+                            line.add(direction);
+                            line.add(directions.get(direction));
+                        }
+                        writeLine(writer, line.toArray(new String[0]));
+                    }
+                }
+            }
+            Enumeration<String> interacts = game.interactOpenedTurn.keys();
+            while (interacts.hasMoreElements()) {
+                String interact = interacts.nextElement();
+                writeLine(writer, "opened", interact, String.valueOf(game.interactOpenedTurn.get(interact)));
+            }
+            for (TimingWheel.TimedEvent event: game.timingWheel.events()) {
+                writeLine(writer, "event", event.type.name(), String.valueOf(event.dueTurn), String.valueOf(event.repeatTurns),
+                    event.interactName, event.text, String.valueOf(event.openedTurn));
+            }
+        }
+    }
+
+    static boolean restore(SpaceStationTextAdventure game, File file) {
+        // start from the loaded world then put back what was different
+        // every field is checked before anything is put back, if the file cannot be read or anything in it is
+        // wrong the game starts again from the loaded world and false is returned
+        SpaceStationTextAdventure pack = game.pack;
+        String room = null;
+        int turn = -1;
+        Hashtable<String, ArrayList<String>> items = new Hashtable<>();
+        Hashtable<String, Hashtable<String, String>> directions = new Hashtable<>();
+        Hashtable<String, Integer> opened = new Hashtable<>();
+        ArrayList<TimingWheel.TimedEvent> events = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+            String text;
+            while ((text = reader.readLine()) != null) {
+                String[] line = text.split("\t", -1);
+                for (int i = 0; i < line.length; i++) {
+                    line[i] = unescape(line[i]);
+                }
+                switch (line[0]) {
+                    case "room":
+                        check(line.length == 2 && pack.roomDictionary.get(line[1]) != null, "room");
+                        room = line[1];
+                        break;
+                    case "turn":
+                        check(line.length == 2, "turn");
+                        turn = Integer.parseInt(line[1]);
+                        check(turn >= 0, "turn");
+                        break;
+                    case "items":
+                        // the shared station's rooms are never saved
+                        check(game.sharedWorld == null && line.length >= 2 && pack.itemsDictionary.get(line[1]) != null, "items");
+                        ArrayList<String> roomItems = new ArrayList<>();
+                        for (int i = 2; i < line.length; i++) {
+                            roomItems.add(line[i]);
+                        }
+                        items.put(line[1], roomItems);
+                        break;
+                    case "directions":
+                        check(game.sharedWorld == null && line.length % 2 == 0 && pack.directionDictionary.get(line[1]) != null, "directions");
+                        Hashtable<String, String> roomDirections = new Hashtable<>();
+                        for (int i = 2; i < line.length; i += 2) {
+                            check(Arrays.asList(game.DIRECTIONSLIST).contains(line[i]) && pack.roomDictionary.get(line[i + 1]) != null, "directions");
+                            roomDirections.put(line[i], line[i + 1]);
+                        }
+                        directions.put(line[1], roomDirections);
+                        break;
+                    case "opened":
+                        check(line.length == 3 && game.findInteract(line[1]) != null, "opened");
+                        opened.put(line[1], Integer.parseInt(line[2]));
+                        break;
+                    case "event":
+                        check(line.length == 7, "event");
+                        // valueOf and parseInt throw IllegalArgumentException too
+                        TimingWheel.TimedEvent event = new TimingWheel.TimedEvent(SpaceStationTextAdventure.TimedEventType.valueOf(line[1]),
+                            Integer.parseInt(line[2]), Integer.parseInt(line[3]), line[4], line[5], Integer.parseInt(line[6]));
+                        check(event.dueTurn >= 1 && event.repeatTurns >= 0, "event");
+                        // toggles and relocks need an interactable that is in the station
+                        check(event.type != SpaceStationTextAdventure.TimedEventType.TOGGLE && event.type != SpaceStationTextAdventure.TimedEventType.RELOCK
+                            || game.findInteract(event.interactName) != null, "event");
+                        events.add(event);
+                        break;
+                    default:
+                        check(false, line[0]);
+                }
+            }
+            check(room != null && turn != -1, "room and turn");
+        } catch (IOException | IllegalArgumentException error) {
+            startAgain(game);
+            return false;
+        }
+        if (game.sharedWorld == null) {
+            game.copyRooms(pack);
+            items.forEach((itemsRoom, roomItems) -> game.itemsDictionary.put(itemsRoom, roomItems));
+            directions.forEach((directionsRoom, roomDirections) -> game.directionDictionary.put(directionsRoom, roomDirections));
+        }
+        game.currentRoom = room;
+        game.turn = turn;
+        game.interactOpenedTurn = opened;
+        game.timingWheel = new TimingWheel();
+        for (TimingWheel.TimedEvent event: events) {
+            game.scheduleEvent(event);
+        }
+        return true;
+    }
+
+    static void check(boolean ok, String what) {
+        if (!ok) {
+            throw new IllegalArgumentException("wrong " + what + " line in saved game");
+        }
+    }
+
+    static void startAgain(SpaceStationTextAdventure game) {
+        // a fresh copy of the loaded world, the same as a new game
+        SpaceStationTextAdventure pack = game.pack;
+        if (game.sharedWorld == null) {
+            game.copyRooms(pack);
+            // the crew too, or an item a crew member is holding would also be back in its starting room
+            if (pack.crew != null) {
+                game.crew = pack.crew.copyFor(game);
+            }
+        }
+        game.currentRoom = game.currentSettings.startingRoom;
+        game.turn = 0;
+        game.interactOpenedTurn = new Hashtable<>();
+        // on the shared station the timed events belong to the station
+        game.timingWheel = game.sharedWorld == null ? pack.timingWheel.copy() : new TimingWheel();
+        game.redrawStatus = true;
+    }
+
+    static void writeLine(BufferedWriter writer, String... values) throws IOException {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                writer.write('\t');
+            }
+            writer.write(escape(values[i]));
+        }
+        writer.newLine();
+    }
+
+    static String escape(String text) {
+        // tabs and new lines would break the lines up, nothing (null) is saved as empty text
+        if (text == null) {
+            return "";
+        }
+        return text.replace("\\", "\\\\").replace("\t", "\\t").replace("\n", "\\n");
+    }
+
+    static String unescape(String text) {
+        StringBuilder result = new StringBuilder();
+        for (int i = 0; i < text.length(); i++) {
+            char letter = text.charAt(i);
+            if (letter == '\\' && i + 1 < text.length()) {
+                i++;
+                char next = text.charAt(i);
+                result.append(next == 't' ? '\t' : next == 'n' ? '\n' : next);
+            } else {
+                result.append(letter);
+            }
+        }
+        return result.toString();
+    }
+}
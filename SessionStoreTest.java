@@ -0,0 +1,104 @@
+/**
+ * Checks a game saved by SessionStore loads back the same, and that a damaged saved game starts the
+ * station again instead of stopping the player's game.
+ *
+ * uses the station in the project folder, so run it from there: "java SessionStoreTest"
+ * it prints every check that failed and exits with 1
+ *
+ * @author agent
+ * @version 19/10/26
+ */
+
+import java.io.File; // Saved game files
+import java.io.FileWriter;
+import java.io.IOException; // Handle file exceptions
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList; // Flexible sized array
+import java.util.Scanner; // Game keyboard
+
+public class SessionStoreTest extends TestCheck
+{
+    SpaceStationTextAdventure pack = new SpaceStationTextAdventure(new File("."), false);
+
+    SpaceStationTextAdventure newGame() {
+        // the same as a server game but nothing is typed or shown
+        return new SpaceStationTextAdventure(pack, new Scanner(""), new PrintStream(OutputStream.nullOutputStream()));
+    }
+
+    static ArrayList<String> eventTexts(SpaceStationTextAdventure game) {
+        ArrayList<String> texts = new ArrayList<>();
+        for (TimingWheel.TimedEvent event: game.timingWheel.events()) {
+            texts.add(event.type + " " + event.dueTurn + " " + event.repeatTurns + " " + event.text + " " + event.openedTurn);
+        }
+        texts.sort(null);
+        return texts;
+    }
+
+    void checkRoundTrip(File file) throws IOException {
+        SpaceStationTextAdventure game = newGame();
+        game.currentRoom = "Hub";
+        game.turn = 7;
+        game.addDirection("Hub", "up", "Storage Room");
+        game.addInventory("potato");
+        game.interactOpenedTurn.put("keypad", 3);
+        // text with tabs and new lines, and an event with no interactable (saved as empty text)
+        game.scheduleEvent(new TimingWheel.TimedEvent(SpaceStationTextAdventure.TimedEventType.WARNING, 50, 5, null, "tab\there\nand a new line\\", 0));
+        SessionStore.save(game, file);
+
+        SpaceStationTextAdventure loaded = newGame();
+        check(SessionStore.restore(loaded, file), "a saved game loads back");
+        check("Hub".equals(loaded.currentRoom), "the room is loaded back");
+        check(loaded.turn == 7, "the turn is loaded back");
+        check("Storage Room".equals(loaded.roomInDirection("Hub", "up")), "an opened direction is loaded back");
+        check(loaded.hasItem("potato"), "the inventory is loaded back");
+        check(loaded.itemsIn("Hub").equals(game.itemsIn("Hub")), "items in rooms are loaded back");
+        check(Integer.valueOf(3).equals(loaded.interactOpenedTurn.get("keypad")), "when the keypad was opened is loaded back");
+        check(eventTexts(loaded).equals(eventTexts(game)), "the timed events are loaded back");
+        check(pack.roomInDirection("Hub", "up") == null, "loading a game does not change the loaded station");
+    }
+
+    void checkDamaged(File file, String what, String text) throws IOException {
+        if (text != null) {
+            try (FileWriter writer = new FileWriter(file)) {
+                writer.write(text);
+            }
+        }
+        SpaceStationTextAdventure game = newGame();
+        game.turn = 12;
+        game.addInventory("potato");
+        if (game.crew != null) {
+            // a crew member carrying something somewhere else
+            game.crew.crew.get(0).holding = "potato";
+            game.crew.crew.get(0).room = "Space";
+        }
+        check(!SessionStore.restore(game, file), what + " is not loaded");
+        check(game.currentSettings.startingRoom.equals(game.currentRoom) && game.turn == 0, what + " starts again in the starting room");
+        check(!game.hasItem("potato"), what + " starts again with the station's items");
+        check(eventTexts(game).equals(eventTexts(newGame())), what + " starts again with the station's timed events");
+        if (game.crew != null) {
+            CrewSimulation.CrewMember member = game.crew.crew.get(0);
+            check(member.holding == null && member.room.equals(pack.crew.crew.get(0).room), what + " starts the crew again");
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        SessionStoreTest test = new SessionStoreTest();
+        File file = File.createTempFile("session", ".txt");
+        file.deleteOnExit();
+        test.checkRoundTrip(file);
+        test.checkDamaged(file, "a turn that is not a number", "room\tHub\nturn\tseven\n");
+        test.checkDamaged(file, "a negative turn", "room\tHub\nturn\t-3\n");
+        test.checkDamaged(file, "a room that does not exist", "room\tMoon\nturn\t3\n");
+        test.checkDamaged(file, "a saved game without a room", "turn\t3\n");
+        test.checkDamaged(file, "a direction to a room that does not exist", "room\tHub\nturn\t3\ndirections\tHub\tup\tMoon\n");
+        test.checkDamaged(file, "a direction that is not a direction", "room\tHub\nturn\t3\ndirections\tHub\tsideways\tEntrance\n");
+        test.checkDamaged(file, "an unknown event type", "room\tHub\nturn\t3\nevent\tEXPLODE\t5\t0\t\ttext\t0\n");
+        test.checkDamaged(file, "an event due before turn 1", "room\tHub\nturn\t3\nevent\tWARNING\t0\t0\t\ttext\t0\n");
+        test.checkDamaged(file, "a relock for an interactable that does not exist", "room\tHub\nturn\t3\nevent\tRELOCK\t5\t0\tdoor\t\t2\n");
+        test.checkDamaged(file, "a line that is not known", "room\tHub\nturn\t3\nweather\tsunny\n");
+        file.delete();
+        test.checkDamaged(file, "a saved game that is missing", null);
+        test.finish();
+    }
+}
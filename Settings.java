@@ -0,0 +1,202 @@
+/**
+ * The settings of a game (the files in the config folder) with a type for each one.
+ *
+ * values are checked against the schema when they are loaded or changed with the setting command
+ * every change makes a new Snapshot with the values already turned into booleans and numbers,
+ * so the game reads a field instead of parsing a string each time it prints
+ * listeners are told about every change, and changes made by the player are saved to the save folder
+ * (laid out like the config folder) so they are used again next time
+ *
+ * @author agent
+ * @version 19/10/26
+ */
+
+import java.io.File; // Save folder
+import java.io.FileWriter; // Save changed settings
+import java.io.IOException; // Handle file exceptions
+import java.util.ArrayList; // Flexible sized array
+import java.util.Collections;
+import java.util.Dictionary; // Save settings in dictionary
+import java.util.Hashtable; // Goes with Dictionary
+import java.util.function.BiConsumer; // Listeners are given the setting name and the new snapshot
+
+public class Settings
+{
+    enum SettingType {
+        BOOLEAN, // true or false
+        NUMBER, // whole number
+        TEXT // anything
+    }
+
+    // name, type, value if there is no file (every Settings starts with it), can the player change it with the
+    // setting command, description
+    static final String[][] SCHEMA = {
+        {"colours", "BOOLEAN", "false", "true", "coloured text, only works with a console"},
+        {"clearScreen", "BOOLEAN", "false", "true", "clear the screen after every command"},
+        {"eventLog", "BOOLEAN", "false", "false", "save every command to the logs folder"},
+        {"crewSeed", "NUMBER", "", "false", "makes the crew do the same thing every game"},
+        {"timedEvents", "BOOLEAN", "false", "false", "the meteor countdown (TimedEvents folder) and doors that close by themselves"},
+        {"startingRoom", "TEXT", "", "false", "room the game starts in"},
+        {"introduction", "TEXT", "", "false", "text shown before the game starts"},
+        {"gameCompleteText", "TEXT", "", "false", "text shown when the game is complete"}
+    };
+
+    class Snapshot {
+        // never changed, a new one is made for every change
+        final boolean colours;
+        final boolean clearScreen;
+        final boolean eventLog;
+        final Long crewSeed; // null if there is no seed
+        final boolean timedEvents;
+        final String startingRoom;
+        final String introduction;
+        final String gameCompleteText;
+
+        Snapshot() {
+            colours = Boolean.parseBoolean(values.get("colours"));
+            clearScreen = Boolean.parseBoolean(values.get("clearScreen"));
+            eventLog = Boolean.parseBoolean(values.get("eventLog"));
+            String seed = values.get("crewSeed");
+            crewSeed = seed == null || seed.isEmpty() ? null : Long.parseLong(seed);
+            timedEvents = Boolean.parseBoolean(values.get("timedEvents"));
+            startingRoom = values.get("startingRoom");
+            introduction = values.get("introduction");
+            gameCompleteText = values.get("gameCompleteText");
+        }
+    }
+
+    // Dictionary with the schema row of each setting
+    static Dictionary<String, String[]> schema = new Hashtable<>();
+    static {
+        for (String[] row: SCHEMA) {
+            schema.put(row[0], row);
+        }
+    }
+
+    // Dictionary with the value of each setting, only set after the value is checked
+    Dictionary<String, String> values = new Hashtable<>();
+    ArrayList<BiConsumer<String, Snapshot>> listeners = new ArrayList<>();
+    // folder changes are saved to, null if changes are not saved
+    File saveFolder;
+    // volatile so a new snapshot is seen straight away by other threads (like the server's report)
+    volatile Snapshot snapshot;
+
+    Settings() {
+        // start from the schema's defaults, a setting with an empty default stays missing
+        for (String[] row: SCHEMA) {
+            if (!row[2].isEmpty()) {
+                values.put(row[0], row[2]);
+            }
+        }
+        snapshot = new Snapshot();
+    }
+
+    Settings copy() {
+        // settings for another game of the same station, without the listeners or save folder
+        Settings copy = new Settings();
+        copy.values = new Hashtable<>((Hashtable<String, String>) values);
+        copy.snapshot = snapshot; // nothing has changed so the snapshot can be shared
+        return copy;
+    }
+
+    void addListener(BiConsumer<String, Snapshot> listener) {
+        listeners.add(listener);
+    }
+
+    String check(String name, String value) {
+        // returns the value in its usual form, or null if it is not right for the setting's type
+        String[] row = schema.get(name);
+        if (row == null) {
+            // not in the schema, kept as text
+            return value;
+        }
+        SettingType type = SettingType.valueOf(row[1]);
+        if (type == SettingType.BOOLEAN) {
+            if (value.trim().equalsIgnoreCase("true") || value.trim().equalsIgnoreCase("false")) {
+                return value.trim().toLowerCase();
+            }
+            return null;
+        } else if (type == SettingType.NUMBER) {
+            try {
+                return String.valueOf(Long.parseLong(value.trim()));
+            } catch (NumberFormatException error) {
+                return null;
+            }
+        }
+        return value;
+    }
+
+    String load(String name, String value) {
+        // value from a file, returns a problem to print or null if it was fine
+        String checked = check(name, value);
+        if (checked == null) {
+            return name + " should be " + typeDescription(name) + ", the setting was not changed";
+        }
+        values.put(name, checked);
+        publish(name);
+        return null;
+    }
+
+    String change(String name, String value) {
+        // value typed by the player, returns a problem to print or null if it was changed
+        if (schema.get(name) == null) {
+            return "no setting found";
+        }
+        if (!canChange(name)) {
+            return name + " can not be changed while playing";
+        }
+        String checked = check(name, value);
+        if (checked == null) {
+            return name + " should be " + typeDescription(name);
+        }
+        values.put(name, checked);
+        publish(name);
+        if (saveFolder != null) {
+            // one file for each setting, the same as the config folder
+            saveFolder.mkdirs();
+            try (FileWriter writer = new FileWriter(new File(saveFolder, name + ".txt"))) {
+                writer.write(checked);
+            } catch (IOException error) {
+                return "setting changed but could not be saved (" + error.getClass().getCanonicalName() + ")";
+            }
+        }
+        return null;
+    }
+
+    boolean canChange(String name) {
+        // true if the player can change the setting with the setting command
+        String[] row = schema.get(name);
+        return row != null && Boolean.parseBoolean(row[3]);
+    }
+
+    void publish(String name) {
+        // make a new snapshot and tell the listeners
+        snapshot = new Snapshot();
+        for (BiConsumer<String, Snapshot> listener: listeners) {
+            listener.accept(name, snapshot);
+        }
+    }
+
+    String typeDescription(String name) {
+        SettingType type = SettingType.valueOf(schema.get(name)[1]);
+        if (type == SettingType.BOOLEAN) {
+            return "true or false";
+        } else if (type == SettingType.NUMBER) {
+            return "a whole number";
+        }
+        return "text";
+    }
+
+    ArrayList<String> describe() {
+        // a line for each setting the player can change, for the setting command
+        ArrayList<String> lines = new ArrayList<>();
+        for (String[] row: SCHEMA) {
+            if (canChange(row[0])) {
+                String value = values.get(row[0]);
+                lines.add(row[0] + " = " + (value == null ? "" : value) + " (" + typeDescription(row[0]) + ", " + row[4] + ")");
+            }
+        }
+        Collections.sort(lines);
+        return lines;
+    }
+}
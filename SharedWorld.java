@@ -0,0 +1,401 @@
+/**
+ * The rooms of a station shared by every player on it, used by the server's shared mode.
+ *
+ * all players see the same items and doors, if one player picks up the battery it is gone for everyone
+ * each player's inventory is kept here too (as a room called "Inventory " and the game name) so moving
+ * an item between a room and an inventory happens all at once
+ *
+ * rooms are locked in stripes: each room uses one of STRIPES locks picked by its name, so players in
+ * different rooms almost never wait for each other. moving an item locks both rooms, always in stripe
+ * order so two players moving items opposite ways cannot wait for each other forever
+ *
+ * timed events belong to the station, not to each player: the station counts the turns every player takes
+ * and its own timing wheel has the pack's timed events and the relocks of doors opened on it, so a
+ * flickering door flips once however many players there are. what the events did is kept in a list that each
+ * game shows the player on their next turn. a relock only closes the door if nobody has opened it again since
+ *
+ * every change adds 1 to its stripe's version, so a game can tell if a room it showed the player has changed
+ * without copying and comparing the room (a change to another room in the same stripe shows it again too)
+ *
+ * run main to time item moves with players spread over many rooms and with every player in one room
+ *
+ * @author agent
+ * @version 19/10/26
+ */
+
+import java.util.ArrayList; // Flexible sized array
+import java.util.Dictionary;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.Hashtable;
+import java.util.concurrent.ConcurrentHashMap; // Inventories are added while players are on the station
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray; // Versions are read without the lock
+
+public class SharedWorld
+{
+    final int STRIPES = 64; // power of 2 so the stripe can be found with &
+    Object[] locks = new Object[STRIPES];
+    // changed while holding the stripe's lock, read by games deciding what to print
+    AtomicIntegerArray versions = new AtomicIntegerArray(STRIPES);
+
+    // items in each room and inventory, each list is only used while holding its room's lock
+    ConcurrentHashMap<String, ArrayList<String>> items = new ConcurrentHashMap<>();
+    // directions out of each room, rooms never change after loading so the HashMap is only read
+    // but each room's directions are only used while holding its lock
+    HashMap<String, HashMap<String, String>> directions = new HashMap<>();
+    // map for every player on the station, changed along with the directions (null for main's made up station)
+    StationMap map;
+
+    static class Happening {
+        // something a timed event did, shown to the players on their next turn
+        int number; // place in everything that has happened on the station
+        String text;
+        String colour;
+        String room; // only shown to players in this room, null for everyone
+    }
+
+    static final int HAPPENINGS = 64; // a player further behind than this misses the oldest
+
+    // the loaded station, for its interactables (null for main's made up station)
+    SpaceStationTextAdventure pack;
+    // turns taken by every player on the station, and the timed events waiting for one of them
+    // only used while holding the events lock, which is taken after a room's lock and never before one
+    int turn = 0;
+    TimingWheel events = new TimingWheel();
+    // the last HAPPENINGS things timed events did, only used while holding its own lock (taken last)
+    ArrayList<Happening> happenings = new ArrayList<>();
+    int happened = 0;
+    // the game over text once a timed event has ended the game for everyone on the station
+    volatile String lostText;
+    // latest opening of each interactable that closes itself, a relock only closes its own opening
+    // each interactable's entry is only changed while holding the lock of the room its door is in
+    ConcurrentHashMap<String, Integer> openings = new ConcurrentHashMap<>();
+    ConcurrentHashMap<String, String[]> relockInfo = new ConcurrentHashMap<>();
+    AtomicInteger nextOpening = new AtomicInteger();
+
+    SharedWorld(SpaceStationTextAdventure pack) {
+        for (int i = 0; i < STRIPES; i++) {
+            locks[i] = new Object();
+        }
+        Enumeration<String> rooms = pack.roomDictionary.keys();
+        while (rooms.hasMoreElements()) {
+            String room = rooms.nextElement();
+            items.put(room, new ArrayList<>(pack.itemsDictionary.get(room)));
+            HashMap<String, String> roomDirections = new HashMap<>();
+            Dictionary<String, String> packDirections = pack.directionDictionary.get(room);
+            Enumeration<String> keys = packDirections.keys();
+            while (keys.hasMoreElements()) {
+                String direction = keys.nextElement();
+                roomDirections.put(direction, packDirections.get(direction));
+            }
+            directions.put(room, roomDirections);
+        }
+        // the directions are the same as the pack's so its map can be drawn from them
+        map = new StationMap(pack.mapLayout, pack);
+        this.pack = pack;
+        events = pack.timingWheel.copy();
+    }
+
+    Object lockFor(String room) {
+        return locks[stripe(room)];
+    }
+
+    int version(String room) {
+        return versions.get(stripe(room));
+    }
+
+    void changed(String room) {
+        // called while holding the room's lock
+        versions.incrementAndGet(stripe(room));
+    }
+
+    int stripe(String room) {
+        // spread the hash so rooms with similar names still use different stripes
+        int hash = room.hashCode();
+        hash ^= hash >>> 16;
+        return hash & (STRIPES - 1);
+    }
+
+    SharedWorld(int roomCount, int players, boolean sameRoom) {
+        // made up station for main, each player's item starts in the room they use
+        for (int i = 0; i < STRIPES; i++) {
+            locks[i] = new Object();
+        }
+        for (int i = 0; i < roomCount; i++) {
+            items.put("room" + i, new ArrayList<>());
+            directions.put("room" + i, new HashMap<>());
+        }
+        for (int p = 0; p < players; p++) {
+            addPlayer("Inventory player" + p);
+            items.get(benchmarkRoom(p, roomCount, players, sameRoom)).add("item" + p);
+        }
+    }
+
+    static String benchmarkRoom(int player, int roomCount, int players, boolean sameRoom) {
+        return sameRoom ? "room0" : "room" + (player * roomCount / players);
+    }
+
+    // Players
+
+    void addPlayer(String inventory) {
+        items.putIfAbsent(inventory, new ArrayList<>());
+    }
+
+    void removePlayer(String inventory, String room) {
+        // the player left, anything they held is left in their room so it is not lost
+        for (String item: itemsIn(inventory)) {
+            moveItem(inventory, room, item);
+        }
+        items.remove(inventory);
+    }
+
+    // Items
+
+    ArrayList<String> itemsIn(String room) {
+        // a copy, so it can be printed without holding the lock
+        synchronized (lockFor(room)) {
+            return new ArrayList<>(items.get(room));
+        }
+    }
+
+    boolean hasItem(String room, String item) {
+        synchronized (lockFor(room)) {
+            return items.get(room).contains(item);
+        }
+    }
+
+    void addItem(String room, String item) {
+        synchronized (lockFor(room)) {
+            items.get(room).add(item);
+            changed(room);
+        }
+    }
+
+    boolean removeItem(String room, String item) {
+        synchronized (lockFor(room)) {
+            if (!items.get(room).remove(item)) {
+                return false;
+            }
+            changed(room);
+            return true;
+        }
+    }
+
+    boolean moveItem(String from, String to, String item) {
+        // takes the item out of one room and puts it in the other with both locked, so no other player
+        // can see the item in neither room or take it at the same time. returns false if it was not there
+        int fromStripe = stripe(from);
+        int toStripe = stripe(to);
+        if (fromStripe == toStripe) {
+            synchronized (locks[fromStripe]) {
+                return moveLocked(from, to, item);
+            }
+        }
+        // lower stripe first
+        Object first = locks[Math.min(fromStripe, toStripe)];
+        Object second = locks[Math.max(fromStripe, toStripe)];
+        synchronized (first) {
+            synchronized (second) {
+                return moveLocked(from, to, item);
+            }
+        }
+    }
+
+    boolean moveLocked(String from, String to, String item) {
+        if (!items.get(from).remove(item)) {
+            return false;
+        }
+        items.get(to).add(item);
+        changed(from);
+        changed(to);
+        return true;
+    }
+
+    // Directions
+
+    String roomInDirection(String room, String direction) {
+        synchronized (lockFor(room)) {
+            return directions.get(room).get(direction);
+        }
+    }
+
+    Dictionary<String, String> directionsIn(String room) {
+        // a copy, so it can be printed without holding the lock
+        synchronized (lockFor(room)) {
+            return new Hashtable<>(directions.get(room));
+        }
+    }
+
+    void setDirection(String room, String direction, String leadsTo) {
+        // opens the direction to leadsTo, or closes it if leadsTo is null
+        synchronized (lockFor(room)) {
+            if (leadsTo == null) {
+                directions.get(room).remove(direction);
+            } else {
+                directions.get(room).put(direction, leadsTo);
+            }
+            changed(room);
+            mapChanged(room, direction, leadsTo);
+        }
+    }
+
+    boolean toggleDirection(String[] info, int relockTurns) {
+        // uses an interactable {start room, leads to, direction, ..., name}
+        // opens the direction if it is closed or closes it if it is open, returns true if it was opened
+        // checking and changing happen together so two players using the same door cannot both open it
+        String room = info[0];
+        String direction = info[2];
+        synchronized (lockFor(room)) {
+            HashMap<String, String> roomDirections = directions.get(room);
+            changed(room);
+            if (roomDirections.get(direction) != null) {
+                roomDirections.remove(direction);
+                mapChanged(room, direction, null);
+                return false;
+            }
+            roomDirections.put(direction, info[1]);
+            mapChanged(room, direction, info[1]);
+            if (relockTurns > 0) {
+                int opening = nextOpening.incrementAndGet();
+                openings.put(info[6], opening);
+                relockInfo.put(info[6], info);
+                synchronized (events) {
+                    events.add(new TimingWheel.TimedEvent(SpaceStationTextAdventure.TimedEventType.RELOCK, turn + relockTurns, 0, info[6], "", opening), turn);
+                }
+            }
+            return true;
+        }
+    }
+
+    void endTurn() {
+        // called after every turn a player takes, does what the timed events due on the station's turn do
+        ArrayList<TimingWheel.TimedEvent> due;
+        int now;
+        synchronized (events) {
+            turn++;
+            now = turn;
+            due = events.advance(now);
+            for (TimingWheel.TimedEvent event: due) {
+                if (event.repeatTurns > 0) {
+                    events.add(event.repeatAfter(now), now);
+                }
+            }
+        }
+        // the events lock is let go of first because toggling and relocking take a room's lock
+        for (TimingWheel.TimedEvent event: due) {
+            if (event.type == SpaceStationTextAdventure.TimedEventType.RELOCK) {
+                relock(event);
+            } else if (event.type == SpaceStationTextAdventure.TimedEventType.TOGGLE) {
+                String[] info = pack == null ? null : pack.findInteract(event.interactName);
+                if (info == null) {
+                    continue;
+                }
+                if (!event.text.equals("")) {
+                    addHappening(event.text, "MAGENTA", null);
+                }
+                boolean opened = toggleDirection(info, Integer.parseInt(info[5]));
+                addHappening(opened ? info[3] : info[4], "YELLOW", null);
+            } else if (event.type == SpaceStationTextAdventure.TimedEventType.WARNING) {
+                addHappening(event.text, "MAGENTA", null);
+            } else if (event.type == SpaceStationTextAdventure.TimedEventType.GAMEOVER) {
+                lostText = event.text;
+            }
+        }
+    }
+
+    void relock(TimingWheel.TimedEvent event) {
+        String[] info = relockInfo.get(event.interactName);
+        synchronized (lockFor(info[0])) {
+            // only if nobody has opened it again since, and nobody has closed it
+            Integer opening = openings.get(event.interactName);
+            if (opening == null || opening != event.openedTurn || directions.get(info[0]).get(info[2]) == null) {
+                return;
+            }
+            directions.get(info[0]).remove(info[2]);
+            changed(info[0]);
+            mapChanged(info[0], info[2], null);
+        }
+        // only seen by players in the room with the door
+        addHappening(info[4], "YELLOW", info[0]);
+    }
+
+    void addHappening(String text, String colour, String room) {
+        Happening happening = new Happening();
+        happening.text = text;
+        happening.colour = colour;
+        happening.room = room;
+        synchronized (happenings) {
+            happening.number = happened++;
+            happenings.add(happening);
+            if (happenings.size() > HAPPENINGS) {
+                happenings.remove(0);
+            }
+        }
+    }
+
+    ArrayList<Happening> happenedSince(int number) {
+        // what timed events did from the given number on, the oldest first
+        ArrayList<Happening> since = new ArrayList<>();
+        synchronized (happenings) {
+            for (Happening happening: happenings) {
+                if (happening.number >= number) {
+                    since.add(happening);
+                }
+            }
+        }
+        return since;
+    }
+
+    int happenedCount() {
+        synchronized (happenings) {
+            return happened;
+        }
+    }
+
+    void mapChanged(String room, String direction, String leadsTo) {
+        // called while holding the room's lock, so the map changes in the same order as the directions
+        if (map != null) {
+            map.setDirection(room, direction, leadsTo);
+        }
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        // java SharedWorld (rooms) (moves per player)
+        int roomCount = 256;
+        int moves = 1000000;
+        if (args.length > 0) {
+            roomCount = Integer.parseInt(args[0]);
+        }
+        if (args.length > 1) {
+            moves = Integer.parseInt(args[1]);
+        }
+        for (boolean sameRoom: new boolean[] {false, true}) {
+            System.out.println(sameRoom ? "every player in one room:" : "players spread over " + roomCount + " rooms:");
+            for (int players = 1; players <= 8; players *= 2) {
+                SharedWorld world = new SharedWorld(roomCount, players, sameRoom);
+                Thread[] threads = new Thread[players];
+                final int playerMoves = moves;
+                long startTime = System.nanoTime();
+                for (int p = 0; p < players; p++) {
+                    String room = benchmarkRoom(p, roomCount, players, sameRoom);
+                    String inventory = "Inventory player" + p;
+                    String item = "item" + p;
+                    threads[p] = new Thread(() -> {
+                        // pick the item up and drop it again
+                        for (int i = 0; i < playerMoves; i++) {
+                            world.moveItem(room, inventory, item);
+                            world.moveItem(inventory, room, item);
+                        }
+                    });
+                    threads[p].start();
+                }
+                for (Thread thread: threads) {
+                    thread.join();
+                }
+                double seconds = (System.nanoTime() - startTime) / 1e9;
+                System.out.printf("  %d players: %.1f million moves a second%n", players, 2.0 * moves * players / seconds / 1e6);
+            }
+        }
+    }
+}
@@ -0,0 +1,148 @@
+/**
+ * Checks the shared station when many players use it at once: items are never lost or copied, players
+ * moving items opposite ways do not wait for each other forever, a door used by many players at once
+ * opens and closes once per use, and timed events happen once on the station's own turns.
+ *
+ * uses the station in the project folder, so run it from there: "java SharedWorldTest"
+ * it prints every check that failed and exits with 1
+ *
+ * @author agent
+ * @version 19/10/26
+ */
+
+import java.io.File; // Station folder
+import java.util.ArrayList; // Flexible sized array
+import java.util.Random; // Same moves every run
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class SharedWorldTest extends TestCheck
+{
+    final int ROOMS = 8;
+    final int PLAYERS = 4;
+    SpaceStationTextAdventure pack = new SpaceStationTextAdventure(new File("."), false);
+
+    boolean runPlayers(Runnable[] players) throws InterruptedException {
+        // starts every player on its own thread, returns false if one is still going after 20 seconds
+        Thread[] threads = new Thread[players.length];
+        for (int p = 0; p < players.length; p++) {
+            threads[p] = new Thread(players[p]);
+            threads[p].setDaemon(true);
+            threads[p].start();
+        }
+        for (Thread thread: threads) {
+            thread.join(20000);
+            if (thread.isAlive()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    void checkMoves() throws InterruptedException {
+        // every player moves every item between random rooms, and the same two rooms are used both ways
+        SharedWorld world = new SharedWorld(ROOMS, PLAYERS, false);
+        ArrayList<String> rooms = new ArrayList<>(world.items.keySet());
+        Runnable[] players = new Runnable[PLAYERS];
+        for (int p = 0; p < PLAYERS; p++) {
+            Random random = new Random(p);
+            players[p] = () -> {
+                for (int i = 0; i < 200000; i++) {
+                    String item = "item" + random.nextInt(PLAYERS);
+                    world.moveItem(rooms.get(random.nextInt(rooms.size())), rooms.get(random.nextInt(rooms.size())), item);
+                }
+            };
+        }
+        boolean finished = runPlayers(players);
+        check(finished, "players moving items opposite ways do not wait for each other forever");
+        if (!finished) {
+            // the rooms are still locked, counting the items would wait forever too
+            return;
+        }
+        for (int p = 0; p < PLAYERS; p++) {
+            int copies = 0;
+            for (String room: rooms) {
+                for (String item: world.itemsIn(room)) {
+                    if (item.equals("item" + p)) {
+                        copies++;
+                    }
+                }
+            }
+            check(copies == 1, "item" + p + " is in exactly one room (" + copies + ")");
+        }
+    }
+
+    void checkToggle() throws InterruptedException {
+        // every player uses the same door at once, each use opens or closes it
+        SharedWorld world = new SharedWorld(ROOMS, 0, false);
+        String[] info = {"room0", "room1", "north", "opened", "closed", "0", "door"};
+        AtomicInteger opened = new AtomicInteger();
+        Runnable[] players = new Runnable[PLAYERS];
+        for (int p = 0; p < PLAYERS; p++) {
+            players[p] = () -> {
+                for (int i = 0; i < 10001; i++) {
+                    if (world.toggleDirection(info, 0)) {
+                        opened.incrementAndGet();
+                    }
+                }
+            };
+        }
+        int versionBefore = world.version("room0");
+        check(runPlayers(players), "players using the same door finish");
+        check(opened.get() == PLAYERS * 10001 / 2, "the door was opened by half of the uses (" + opened.get() + ")");
+        check(world.roomInDirection("room0", "north") == null, "the door is closed after an even number of uses");
+        check(world.version("room0") == versionBefore + PLAYERS * 10001, "every use changes the room's version");
+    }
+
+    void checkRelock() {
+        SharedWorld world = new SharedWorld(ROOMS, 0, false);
+        String[] info = {"room0", "room1", "north", "opened", "closed", "3", "door"};
+        world.toggleDirection(info, 3);
+        world.endTurn();
+        world.endTurn();
+        check("room1".equals(world.roomInDirection("room0", "north")), "the door stays open until its relock turn");
+        world.endTurn();
+        check(world.roomInDirection("room0", "north") == null, "the door closes itself on the station's third turn");
+        ArrayList<SharedWorld.Happening> happenings = world.happenedSince(0);
+        check(happenings.size() == 1 && happenings.get(0).text.equals("closed") && "room0".equals(happenings.get(0).room),
+            "closing is only shown to players in the door's room");
+
+        // opened again before the first relock, only the latest opening closes it
+        world.toggleDirection(info, 3); // relock on turn 6
+        world.endTurn();
+        world.toggleDirection(info, 3); // closed by a player
+        world.toggleDirection(info, 3); // opened again, relock on turn 7
+        world.endTurn();
+        world.endTurn();
+        check("room1".equals(world.roomInDirection("room0", "north")), "an old relock does not close a door opened again");
+        world.endTurn();
+        check(world.roomInDirection("room0", "north") == null, "the latest opening's relock closes it");
+    }
+
+    void checkStationEvents() {
+        // timed events are on the station's wheel, the players' turns together make the station's turns
+        SharedWorld world = new SharedWorld(pack);
+        String[] info = pack.findInteract("gravity switch");
+        world.events.add(new TimingWheel.TimedEvent(SpaceStationTextAdventure.TimedEventType.TOGGLE, 5, 5, "gravity switch", "flicker", 0), 0);
+        world.events.add(new TimingWheel.TimedEvent(SpaceStationTextAdventure.TimedEventType.GAMEOVER, 12, 0, null, "the end", 0), 0);
+        for (int turn = 1; turn <= 10; turn++) {
+            // turns taken by any of the players, it does not matter whose
+            world.endTurn();
+        }
+        check(world.roomInDirection(info[0], info[2]) == null, "the switch flipped once on turn 5 and once on turn 10");
+        check(world.happenedCount() == 4, "each flip is shown once however many players there are (" + world.happenedCount() + ")");
+        check(world.lostText == null, "the game is not over before its turn");
+        world.endTurn();
+        world.endTurn();
+        check("the end".equals(world.lostText), "game over ends the game for everyone on the station");
+        check(pack.roomInDirection(info[0], info[2]) == null, "the loaded station is not changed");
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        SharedWorldTest test = new SharedWorldTest();
+        test.checkMoves();
+        test.checkToggle();
+        test.checkRelock();
+        test.checkStationEvents();
+        test.finish();
+    }
+}
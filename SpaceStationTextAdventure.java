@@ -10,6 +10,7 @@
  */
 
 import java.util.Scanner; // Read keyboard
+import java.io.PrintStream; // Where to print, the screen or a server connection
 import java.util.Arrays; // Flexible sized array
 import java.util.ArrayList; // Flexible sized array
 import java.io.File; // Get files
@@ -18,6 +19,8 @@ import java.io.IOException; // Handle file exceptions
 import java.util.Dictionary; // Save room data in dictionary
 import java.util.Hashtable; // Goes with Dictionary
 import java.util.Enumeration; // Goes with Dictionary AND for making enums
+import java.util.concurrent.atomic.AtomicInteger; // Versions changed by the crew's threads
+import java.util.concurrent.locks.ReentrantLock; // Lets the server save a game only while it waits for input
 
 public class SpaceStationTextAdventure
 {
@@ -34,7 +37,8 @@ public class SpaceStationTextAdventure
         INTERACT,
         USE,
         HELP,
-        SETTING
+        SETTING,
+        MAP
     }
     
     enum OnInteract {
@@ -43,61 +47,219 @@ public class SpaceStationTextAdventure
         COMPLETEGAME // complete game
     }
     
+    enum TimedEventType {
+        WARNING, // print text when the turn is reached, like the meteor getting closer
+        TOGGLE, // toggle an interactable, like the gravity flickering
+        RELOCK, // close an interactable if it is still open, like a door closing by itself
+        GAMEOVER // lose the game, like the meteor hitting the station
+    }
+    
     Scanner keyboard = new Scanner(System.in);
+    PrintStream out = System.out;
+    // coloured text only works with a console (not BlueJ), server connections count as a console
+    boolean console = System.console() != null;
+    // true when played over a server connection, clearing the screen is done with ansi codes instead of cls
+    boolean remote = false;
+    // folder the station files are read from, the project folder unless a world pack is loaded
+    File packFolder = new File(".");
+    // settings given after the command as name=value, used instead of the config folder (like crewSeed=5)
+    String[] commandLineSettings = {};
+    // sends each turn to spectators, null if nobody can watch (not on a server)
+    TurnBroadcast broadcast;
+    // saves every command to the logs folder, null if logging is turned off
+    EventLog eventLog;
+    // name of this game in the event log
+    String gameName = "local";
+    // rooms shared with every other player on the server's shared station, null for a game of your own
+    SharedWorld sharedWorld;
+    // number of the next thing the shared station's timed events did that this player has not been shown
+    int shownHappenings = 0;
+    // room in itemsDictionary (or the shared world) that holds this player's items
+    String inventoryName = "Inventory";
+    // the loaded world this game was copied from, null if the game loaded the files itself
+    SpaceStationTextAdventure pack;
+    // held by the player's thread except while it waits for input, so the server can only save an idle
+    // game to disk while it is waiting, and the player's next command waits until it is loaded back
+    ReentrantLock sessionLock = new ReentrantLock();
+    volatile boolean waitingForInput = false;
+    volatile long lastInputTime = System.currentTimeMillis();
+    // file the game is saved in while it is idle, null while the game is in memory
+    File passiveFile;
+    
+    // Status shown each turn
+    // a section is only printed again when it has changed since the player last saw it, so a failed
+    // command does not send the whole room again (this is most of the bytes sent to server players)
+    // items, the inventory and directions have a version that goes up every time they change
+    // atomic because the crew moves items in many rooms at once on the common pool's threads
+    AtomicInteger itemsVersion = new AtomicInteger();
+    AtomicInteger inventoryVersion = new AtomicInteger();
+    AtomicInteger directionsVersion = new AtomicInteger();
+    // what the last status showed, redrawStatus prints every section next turn
+    String shownRoom;
+    int shownDirectionsVersion;
+    int shownItemsVersion;
+    int shownInventoryVersion;
+    boolean redrawStatus = true;
     
     // Create a new dictionary to store descriptions
     Dictionary<String, String> descriptionDictionary;
     // Dictionary for rooms (only used to check if a room exists)
     Dictionary<String, Boolean> roomDictionary = new Hashtable<>();
     // Dictionary for directions
-    Dictionary<String, Dictionary> directionDictionary = new Hashtable<>();
+    Dictionary<String, Dictionary<String, String>> directionDictionary = new Hashtable<>();
     // Dictionary for items
     Dictionary<String, ArrayList<String>> itemsDictionary = new Hashtable<>();
     // Dictionary for interactables
-    Dictionary<String, Dictionary> interactDictionary = new Hashtable<>();
+    Dictionary<String, Dictionary<String, String[]>> interactDictionary = new Hashtable<>();
     // Dictionary for item descriptions
     Dictionary<String, String> itemDescriptionDictionary = new Hashtable<>();
     // Dictionary for ascii colour codes
     Dictionary<String, String> coloursDictionary = new Hashtable<>();
-    // Dictionary with text explanation for a new room
-    Dictionary<String, String> newRoomDictionary = new Hashtable<>();
+    // Dictionary with text explanation for a new room, compiled from the markup in StoryText
+    Dictionary<String, StoryText> newRoomDictionary = new Hashtable<>();
     // Dictionary with enum and extra info from use items
     Dictionary<String, String[]> useItemsDictionary = new Hashtable<>();
-    // dictionary with keys like introduction and game complete can be stored as file and then in dictionary when run
-    Dictionary<String, String> configurations = new Hashtable<>();
+    // settings like introduction and game complete can be stored as file and then in settings when run
+    Settings settings;
+    // settings as booleans and numbers, replaced by a listener whenever a setting changes
+    Settings.Snapshot currentSettings;
+    // Dictionary with the turn an interactable was last opened (used so an old relock does not close it again)
+    Dictionary<String, Integer> interactOpenedTurn = new Hashtable<>();
+    
+    // Timing wheel for timed events
+    // a tick only looks at one slot so it does not matter how many events are waiting (see TimingWheel)
+    TimingWheel timingWheel = new TimingWheel();
+    int turn = 0; // number of turns played so far
+    int roomsEntered = 0; // rooms being entered at once, more than one when a rule moves the player on entering
+    final int MAXROOMSENTERED = 8;
+    boolean gameOver = false; // set by a GAMEOVER timed event or a rule
+    boolean gameComplete = false; // set by using the COMPLETEGAME item or a rule
+    
+    // crew members that walk around the station, null if there is no Crew folder
+    CrewSimulation crew;
+    
+    // names for "did you mean" suggestions, made when the station is loaded and shared by every game of it
+    BKTree commandTree;
+    BKTree itemTree;
+    BKTree interactTree;
+    BKTree roomTree;
+    
+    // rules from the Rules folder compiled when the station is loaded, shared by every game of it
+    Rules rules;
+    
+    // where each room goes on the map, worked out when the station is loaded and shared by every game of it
+    StationMap.Layout mapLayout;
+    // drawing of this game's map, made the first time the player asks (the shared station has its own)
+    StationMap map;
+    
+    // config/introduction.txt and config/gameCompleteText.txt compiled when the station is loaded
+    StoryText introductionStory;
+    StoryText gameCompleteStory;
     
     void print(String str) {
         // if print method is called with one parameter, this method is run
         // print is 13 characters shorter than System.out.println. There are probably 50+ print functions, saves more than 650 characters
-        System.out.println(str);
+        out.println(str);
     }
     
     // method overloading
     void print(String str, String colour) {
         // if print method is called with two parameters, this method is run
-        if (System.console() != null && Boolean.parseBoolean(configurations.get("colours"))) {
+        if (console && currentSettings.colours) {
             // run if true, do not run if false or null (not found in config folder)
-            System.out.println(getColour(colour) + str + getColour("RESET"));
+            out.println(getColour(colour) + str + getColour("RESET"));
         } else {
             // no console attached, might be running in a program like BlueJ
-            System.out.println(str);
+            out.println(str);
         }
     }
     
     // method overloading for printing items in a room
     void print(ArrayList str, String colour) {
         // if print method is called with two parameters, this method is run
-        if (System.console() != null && Boolean.parseBoolean(configurations.get("colours"))) {
+        if (console && currentSettings.colours) {
             // run if true, do not run if false or null (not found in config folder)
-            System.out.println(getColour(colour) + str + getColour("RESET"));
+            out.println(getColour(colour) + str + getColour("RESET"));
         } else {
             // no console attached, might be running in a program like BlueJ
-            System.out.println(str);
+            out.println(str);
+        }
+    }
+    
+    void printStory(StoryText story, String colour) {
+        // run the steps of story text, colour is used for any part of the text without its own colour
+        boolean colours = console && currentSettings.colours;
+        String baseColour = colours && colour != null ? getColour(colour) : "";
+        String reset = colours ? getColour("RESET") : "";
+        StringBuilder line = new StringBuilder(baseColour);
+        boolean started = false; // something has been added to line
+        for (int i = 0; i < story.steps.length; i++) {
+            int argument = story.arguments[i];
+            switch (story.steps[i]) {
+                case StoryText.TEXT:
+                    line.append(story.texts[argument]);
+                    started = true;
+                    break;
+                case StoryText.COLOUR:
+                    if (colours) {
+                        line.append(argument == -1 ? reset + baseColour : story.texts[argument]);
+                    }
+                    break;
+                case StoryText.VARIABLE:
+                    line.append(storyVariable(argument));
+                    started = true;
+                    break;
+                case StoryText.NEWLINE:
+                    out.println(line.append(reset));
+                    line.setLength(0);
+                    line.append(baseColour);
+                    started = false;
+                    break;
+                case StoryText.PAUSE:
+                    if (started) {
+                        out.println(line.append(reset));
+                        line.setLength(0);
+                        line.append(baseColour);
+                        started = false;
+                    }
+                    waitForInput();
+                    break;
+            }
+        }
+    }
+    
+    String storyVariable(int variable) {
+        // value of a {variable} in story text
+        switch (variable) {
+            case StoryText.ROOM:
+                return currentRoom;
+            case StoryText.TURN:
+                return String.valueOf(turn);
+            case StoryText.ITEMSHELD:
+                return String.valueOf(itemsIn(inventoryName).size());
+            case StoryText.ITEMSINROOM:
+                return String.valueOf(itemsIn(currentRoom).size());
         }
+        return "";
+    }
+    
+    StoryText compileStory(String fileName, String text) {
+        // compile story text once when loading, markup mistakes are warnings because the text can still be shown
+        StoryText story = StoryText.compile(fileName, text, coloursDictionary);
+        for (String problem: story.problems) {
+            print(problem, "YELLOW");
+        }
+        return story;
     }
     
     void clearScreen() {
         // clears BlueJ and command prompt window
+        if (remote) {
+            // cls would clear the server's window, not the player's
+            out.print("\u001b[H\u001b[2J");
+            out.flush();
+            return;
+        }
         try {
             // clear screen
             new ProcessBuilder("cmd", "/c", "cls").inheritIO().start().waitFor();
@@ -113,7 +275,7 @@ public class SpaceStationTextAdventure
     boolean startingRoomExists() {
         // a check to make sure the starting room exists, returns a true or false
         boolean success = true;
-        String configStartingRoom = configurations.get("startingRoom");
+        String configStartingRoom = currentSettings.startingRoom;
         if (configStartingRoom != null) {
             if (roomDictionary.get(configStartingRoom) == null) {
                 print("starting room file was found but it does not exist", "RED");
@@ -129,44 +291,96 @@ public class SpaceStationTextAdventure
     
     // Methods to do with configurations
     
+    void useSettings(Settings newSettings) {
+        // called by the constructors before anything is printed
+        settings = newSettings;
+        currentSettings = settings.snapshot;
+        settings.addListener((name, snapshot) -> currentSettings = snapshot);
+    }
+    
     void applyConfigurations() {
         // get the folder for configurations
-        File configFolder = new File("config");
+        File configFolder = new File(packFolder, "config");
         if (configFolder.exists()) {
-            // Create a list of contained files
-            File[] configFiles = configFolder.listFiles();
-            for (File propertyFile: configFiles) {
-                String propertyName = propertyFile.getName();
-                // delete .txt from name
-                propertyName = propertyName.substring(0, propertyName.length()-4);
-                Scanner readFile;
-                try {
-                    // Safely open the file
-                    readFile = new Scanner(propertyFile);
-                } catch (IOException error) {
-                    print("failed to load configuration for " + propertyName, "YELLOW");
-                    print(error.getClass().getCanonicalName(), "RED");
-                    //error.printStackTrace();
-                    // continue because opening has failed and non essential part of text adventure
-                    continue;
-                }
-                String text = "";
-                while (readFile.hasNextLine()) {
-                    text += readFile.nextLine();
-                    // need to add newline character or it will be one big line
-                    // check if another line otherwise there will be a newline at end of string
-                    if (readFile.hasNextLine()) {
-                        text += "\n";
-                    }
-                }
-                configurations.put(propertyName, text);
-            }
+            applySettingsFolder(configFolder, false);
         } else {
             // continue because opening has failed and non essential part of text adventure
             print("WARNING config folder not found", "YELLOW");
             print("make sure the config folder is in the same directory as the project file. Many features may be inaccessible", "YELLOW");
             waitForInput();
         }
+        for (String setting: commandLineSettings) {
+            int equals = setting.indexOf('=');
+            if (equals == -1) {
+                print("command line setting " + setting + " should be name=value", "YELLOW");
+                continue;
+            }
+            // checked against the type of the setting
+            String problem = settings.load(setting.substring(0, equals), setting.substring(equals + 1));
+            if (problem != null) {
+                print("command line: " + problem, "YELLOW");
+            }
+        }
+    }
+    
+    boolean givenOnCommandLine(String name) {
+        for (String setting: commandLineSettings) {
+            if (setting.startsWith(name + "=")) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    void applySavedSettings() {
+        // settings the player changed in an earlier game, saved again whenever they change
+        settings.saveFolder = new File(packFolder, "saves" + File.separator + gameName);
+        if (settings.saveFolder.exists()) {
+            applySettingsFolder(settings.saveFolder, true);
+        }
+    }
+    
+    void applySettingsFolder(File folder, boolean saved) {
+        // Create a list of contained files
+        File[] configFiles = folder.listFiles();
+        for (File propertyFile: configFiles) {
+            String propertyName = propertyFile.getName();
+            // delete .txt from name
+            propertyName = propertyName.substring(0, propertyName.length()-4);
+            if (saved && !settings.canChange(propertyName)) {
+                // only settings the player can change are saved
+                continue;
+            }
+            if (saved && givenOnCommandLine(propertyName)) {
+                // typed for this run, so it wins over what was saved in an earlier game
+                continue;
+            }
+            Scanner readFile;
+            try {
+                // Safely open the file
+                readFile = new Scanner(propertyFile);
+            } catch (IOException error) {
+                print("failed to load configuration for " + propertyName, "YELLOW");
+                print(error.getClass().getCanonicalName(), "RED");
+                //error.printStackTrace();
+                // continue because opening has failed and non essential part of text adventure
+                continue;
+            }
+            String text = "";
+            while (readFile.hasNextLine()) {
+                text += readFile.nextLine();
+                // need to add newline character or it will be one big line
+                // check if another line otherwise there will be a newline at end of string
+                if (readFile.hasNextLine()) {
+                    text += "\n";
+                }
+            }
+            // checked against the type of the setting
+            String problem = settings.load(propertyName, text);
+            if (problem != null) {
+                print(folder.getName() + "/" + propertyName + ".txt: " + problem, "YELLOW");
+            }
+        }
     }
     
     // Methods to do with using items
@@ -196,7 +410,7 @@ public class SpaceStationTextAdventure
     void applyUseItems() {
         // on program init
         // get the folder for use items
-        File useItemsFolder = new File("UseItems");
+        File useItemsFolder = new File(packFolder, "UseItems");
         if (useItemsFolder.exists()) {
             // Create a list of contained files
             File[] useItemsFiles = useItemsFolder.listFiles();
@@ -245,6 +459,14 @@ public class SpaceStationTextAdventure
         }
     }
     
+    void applyRules() {
+        // compiled once here, rules with mistakes are left out
+        rules = Rules.load(this, new File(packFolder, "Rules"));
+        for (String problem: rules.problems) {
+            print(problem, "YELLOW");
+        }
+    }
+    
     String[] getUseItem(String itemName) {
         // get the used item
         return useItemsDictionary.get(itemName);
@@ -253,13 +475,13 @@ public class SpaceStationTextAdventure
     // Methods to do with new rooms
     void addRoomSequence(String room, String toPrint) {
         // toPrint: what to print on entering room
-        newRoomDictionary.put(room, toPrint);
+        newRoomDictionary.put(room, compileStory("NewRoomSequence/" + room + ".txt", toPrint));
     }
     
     void applyRoomSequences() {
         // should run when program is initiated
         // get the folder for room sequences
-        File roomSequenceFolder = new File("NewRoomSequence");
+        File roomSequenceFolder = new File(packFolder, "NewRoomSequence");
         if (roomSequenceFolder.exists()) {
             // Create a list of contained files
             File[] roomSequenceFiles = roomSequenceFolder.listFiles();
@@ -292,12 +514,37 @@ public class SpaceStationTextAdventure
         }
     }
     
-    String hasRoomSequence(String room) {
-        // returns string to print if exists
+    StoryText hasRoomSequence(String room) {
+        // returns story text to print if exists
         // returns null if does not exist
         return newRoomDictionary.get(room);
     }
     
+    void showRoomSequence(String room) {
+        // Check for "room sequence", like a cutscene to tell the player extra useful info
+        StoryText sequence = hasRoomSequence(room);
+        if (sequence != null) {
+            // exists
+            print(""); // formatting
+            printStory(sequence, "YELLOW");
+            waitForInput(); 
+        }
+    }
+    
+    void enterRoom(String room) {
+        // every way into a room (moving, teleporting or a rule) comes through here so enter rules and
+        // room sequences always happen, and the status (which spectators see too) shows the new room
+        currentRoom = room;
+        if (roomsEntered >= MAXROOMSENTERED) {
+            // rules that move the player on entering could lead round in a circle forever
+            return;
+        }
+        roomsEntered++;
+        rules.fire(this, "enter", room);
+        showRoomSequence(room);
+        roomsEntered--;
+    }
+    
     // Methods to do with colours
     
     void initColours() {
@@ -322,26 +569,64 @@ public class SpaceStationTextAdventure
     
     void addDirection(String room, String direction, String leadsTo) {
         // Create a new direction in a room
-        // Intended to be run only during program start OR when an interactable creates a new direction
+        // Intended to be run only during program start OR when an interactable or rule creates a new direction
+        if (sharedWorld != null) {
+            sharedWorld.setDirection(room, direction, leadsTo);
+            return;
+        }
         directionDictionary.get(room).put(direction, leadsTo);
+        directionsVersion.incrementAndGet();
+        if (map != null) {
+            map.setDirection(room, direction, leadsTo);
+        }
     }
     
     void delDirection(String room, String direction) {
         // Delete a direction in a room
-        // Intended to be used with interactables
+        // Intended to be used with interactables and rules
+        if (sharedWorld != null) {
+            sharedWorld.setDirection(room, direction, null);
+            return;
+        }
         directionDictionary.get(room).remove(direction);
+        directionsVersion.incrementAndGet();
+        if (map != null) {
+            map.setDirection(room, direction, null);
+        }
     }
     
     
     String roomInDirection(String room, String direction) {
         // Check if room is in a direction and return room name or return null
-        String leadsTo = (String) directionDictionary.get(room).get(direction);
+        if (sharedWorld != null) {
+            return sharedWorld.roomInDirection(room, direction);
+        }
+        String leadsTo = directionDictionary.get(room).get(direction);
         return leadsTo;
     }
     
+    Dictionary<String, String> directionsIn(String room) {
+        // every direction out of a room, a copy when the room is shared
+        if (sharedWorld != null) {
+            return sharedWorld.directionsIn(room);
+        }
+        return directionDictionary.get(room);
+    }
+    
+    StationMap map() {
+        // the map drawing kept up to date as directions change
+        if (sharedWorld != null) {
+            return sharedWorld.map;
+        }
+        if (map == null) {
+            map = new StationMap(mapLayout, this);
+        }
+        return map;
+    }
+    
     void printDirections() {
         // Get dictionary with every possible direction in current room
-        Dictionary roomDictionary = directionDictionary.get(currentRoom);
+        Dictionary<String, String> roomDictionary = directionsIn(currentRoom);
         
         print("You can move:");
         Enumeration<String> directions = roomDictionary.keys();
@@ -349,34 +634,29 @@ public class SpaceStationTextAdventure
             // Get dictionary key (direction)
             String roomDirection = directions.nextElement();
             // Get dictionary value (destination)
-            String leadsTo = (String) directionDictionary.get(currentRoom).get(roomDirection);
+            String leadsTo = roomDictionary.get(roomDirection);
             print(roomDirection + " to " + leadsTo, "CYAN");
         }
         print("");
     }
     
-    boolean moveDir(String direction) {
-        boolean success = false;
-        
+    String moveDir(String direction) {
+        // returns the room to move to, the command enters it once "Moving" is printed
         String room = roomInDirection(currentRoom, direction);
         // null means no room in direction and return movement failed
-        // if not null, then change the current room and return movement success
-        if (room != null) {
-            if (roomDictionary.get(room) == null) {
-                print("tried to move to a room that does not exist", "RED");
-            } else {
-                currentRoom = room;
-                success = true;
-            }
+        // if not null, then return the room for movement success
+        if (room != null && roomDictionary.get(room) == null) {
+            print("tried to move to a room that does not exist", "RED");
+            room = null;
         }
-        return success;
+        return room;
     }
     
     boolean applyDirectionsToRoom(String roomName) {
         String folderName = roomName; // folder name is same as room name
         directionDictionary.put(roomName, new Hashtable<>());
         // Get the file with directions
-        File directionsFile = new File("Rooms\\"+folderName+"\\directions.txt");
+        File directionsFile = new File(packFolder, "Rooms" + File.separator + folderName + File.separator + "directions.txt");
         Scanner readFile;
         try {
             // Safely open the file
@@ -417,7 +697,7 @@ public class SpaceStationTextAdventure
     
     void applyDescriptionToRoom(String roomName) {
         String folderName = roomName; // folder name is same as room name
-        File descriptionFile = new File("Rooms\\"+folderName+"\\description.txt");
+        File descriptionFile = new File(packFolder, "Rooms" + File.separator + folderName + File.separator + "description.txt");
         Scanner readFile = null;
         try {
             // Safely open the file
@@ -442,7 +722,7 @@ public class SpaceStationTextAdventure
         // runs during program start
         
         // get the folder for item descriptions
-        File itemDescriptFolder = new File("ItemDescriptions");
+        File itemDescriptFolder = new File(packFolder, "ItemDescriptions");
         if (itemDescriptFolder.exists()) {
             // Create a list of contained files
             File[] itemDescriptFiles = itemDescriptFolder.listFiles();
@@ -494,20 +774,21 @@ public class SpaceStationTextAdventure
     
     // Interact methods
     
-    void addInteract(String room, String interactName, String direction, String startRoom, String leadsTo, String enabledText, String disabledText) {
+    void addInteract(String room, String interactName, String direction, String startRoom, String leadsTo, String enabledText, String disabledText, String relockTurns) {
         // method adds item to room
+        // relockTurns: how many turns until the pathway closes by itself ("0" means it stays open)
         
         // Get all current items in room
         Dictionary<String, String[]> roomInteractables= interactDictionary.get(room);
         
-        String[] interactInfo = {startRoom, leadsTo, direction, enabledText, disabledText};
+        String[] interactInfo = {startRoom, leadsTo, direction, enabledText, disabledText, relockTurns, interactName};
         roomInteractables.put(interactName, interactInfo);
         // don't need to set item array to dictionary as it is already changed when added item
     }
     
     boolean applyInteracts() {
         // get the folder for interactables
-        File interactablesFolder = new File("Interactables");
+        File interactablesFolder = new File(packFolder, "Interactables");
         if (interactablesFolder.exists()) {
             // Create a list of contained files
             File[] interactablesFiles = interactablesFolder.listFiles();
@@ -535,6 +816,7 @@ public class SpaceStationTextAdventure
                 String startRoom = null;
                 String leadsTo = null;
                 String direction = null;
+                String relockTurns = "0"; // optional so it has a default value
                 while (readFile.hasNextLine()) {
                     String line = readFile.nextLine();
                     lineNum++;
@@ -559,11 +841,31 @@ public class SpaceStationTextAdventure
                     } else if (lineNum == 7) {
                         // direction from start room
                         direction = line;
+                    } else if (lineNum == 8) {
+                        // (optional) turns before the pathway closes by itself
+                        relockTurns = line;
                     }
                 }
+                // checked here so toggling the interactable can never fail on it
+                boolean relockOk;
+                try {
+                    relockOk = Integer.parseInt(relockTurns.trim()) >= 0;
+                } catch (NumberFormatException e) {
+                    relockOk = false;
+                }
+                if (relockOk) {
+                    relockTurns = relockTurns.trim();
+                } else {
+                    print("interactable " + interactableName + ": the turns before it closes should be a whole number that is not negative, it will stay open", "YELLOW");
+                    relockTurns = "0";
+                }
+                if (!currentSettings.timedEvents) {
+                    // doors closing by themselves change how the game plays, so they are only on with the setting
+                    relockTurns = "0";
+                }
                 // check each variable has a value
                 if (enabledText != null && disabledText != null && room != null && startRoom != null && leadsTo != null && direction != null) {
-                    addInteract(room, interactableName, direction, startRoom, leadsTo, enabledText, disabledText);
+                    addInteract(room, interactableName, direction, startRoom, leadsTo, enabledText, disabledText, relockTurns);
                 } else {
                     print("an error occurred with an interactable", "RED");
                 }
@@ -578,7 +880,7 @@ public class SpaceStationTextAdventure
     }
     
     void printInteractsInRoom(String room) {
-        Dictionary roomInteractables = interactDictionary.get(room);
+        Dictionary<String, String[]> roomInteractables = interactDictionary.get(room);
         Enumeration <String> interactables = roomInteractables.keys();
         
         // if statement otherwise will just say "You can interact with:" then empty if no keys in dictionary
@@ -599,24 +901,349 @@ public class SpaceStationTextAdventure
         return interactInfo;
     }
     
+    String[] findInteract(String interactName) {
+        // search every room for an interactable, used by timed events which can happen from any room
+        Enumeration<String> rooms = interactDictionary.keys();
+        while (rooms.hasMoreElements()) {
+            String[] interactInfo = getInteractInRoom(rooms.nextElement(), interactName);
+            if (interactInfo != null) {
+                return interactInfo;
+            }
+        }
+        return null;
+    }
+    
+    void toggleInteract(String[] info) {
+        String startingRoom = info[0];
+        String leadsTo = info[1];
+        String direction = info[2];
+        String enabledText = info[3];
+        String disabledText = info[4];
+        int relockTurns = Integer.parseInt(info[5]);
+        String interactName = info[6];
+        print(""); // formatting
+        // toggles directions
+        // IF: pathway exists between starting room and destination
+        // delete the pathway (e.g. gravity turned on, cannot float to room above)
+        // ELSE: (pathway does not exist between starting room and destination)
+        // create pathway (e.g. gravity turned off, can float to room above)
+        boolean opened;
+        if (sharedWorld != null) {
+            // checked and changed together in case another player uses it at the same time
+            // the shared station closes it again itself, so one player's relock cannot close another player's door
+            opened = sharedWorld.toggleDirection(info, relockTurns);
+        } else if (roomInDirection(startingRoom, direction) != null) {
+            // already exists so revert changes
+            delDirection(startingRoom, direction);
+            opened = false;
+        } else {
+            addDirection(startingRoom, direction, leadsTo);
+            opened = true;
+        }
+        if (!opened) {
+            print(disabledText, "YELLOW");
+        } else {
+            print(enabledText, "YELLOW");
+            interactOpenedTurn.put(interactName, turn);
+            if (relockTurns > 0 && sharedWorld == null) {
+                // close the pathway again after some turns, remember which turn it was opened on
+                scheduleEvent(new TimingWheel.TimedEvent(TimedEventType.RELOCK, turn + relockTurns, 0, interactName, "", turn));
+            }
+        }
+        print(""); // formatting
+    }
+    
+    // Timed event methods
+    
+    void scheduleEvent(TimingWheel.TimedEvent event) {
+        // put the event into the slot for the turn it happens on
+        timingWheel.add(event, turn);
+    }
+    
+    void applyTimedEvents() {
+        // on program init
+        if (!currentSettings.timedEvents) {
+            // the meteor countdown ends the game, so it is only on with the setting (config/timedEvents.txt)
+            return;
+        }
+        // get the folder for timed events
+        File timedEventsFolder = new File(packFolder, "TimedEvents");
+        if (timedEventsFolder.exists()) {
+            // Create a list of contained files
+            File[] timedEventsFiles = timedEventsFolder.listFiles();
+            for (File eventFile: timedEventsFiles) {
+                String eventName = eventFile.getName();
+                // delete .txt from name
+                eventName = eventName.substring(0, eventName.length()-4);
+                Scanner readFile;
+                try {
+                    // Safely open the file
+                    readFile = new Scanner(eventFile);
+                } catch (IOException error) {
+                    print("failed to load timed event " + eventName, "YELLOW");
+                    print(error.getClass().getCanonicalName(), "RED");
+                    // continue because opening has failed and non essential part of text adventure
+                    continue;
+                }
+                int lineNum = 0;
+                String eventType = ""; // what enum (WARNING, TOGGLE, etc)
+                String dueTurn = ""; // turn the event happens on
+                String repeatTurns = ""; // repeat every x turns, 0 for never
+                String interactName = ""; // interactable to toggle, null if not needed
+                String text = "";
+                while (readFile.hasNextLine()) {
+                    String line = readFile.nextLine();
+                    lineNum++;
+                    if (lineNum == 1) {
+                        // comments in file
+                        continue;
+                    } else if (lineNum == 2) {
+                        eventType = line;
+                    } else if (lineNum == 3) {
+                        dueTurn = line;
+                    } else if (lineNum == 4) {
+                        repeatTurns = line;
+                    } else if (lineNum == 5) {
+                        interactName = line;
+                    } else {
+                        // need to add newline character or it will be one big line
+                        text += line;
+                        if (readFile.hasNextLine()) {
+                            // only add newline if there is another line
+                            text += "\n";
+                        }
+                    }
+                }
+                TimingWheel.TimedEvent event;
+                try {
+                    // check that the enum type exists and the turns are numbers
+                    event = new TimingWheel.TimedEvent(TimedEventType.valueOf(eventType), Integer.parseInt(dueTurn), Integer.parseInt(repeatTurns), interactName, text, 0);
+                } catch (IllegalArgumentException e) {
+                    // NumberFormatException is also an IllegalArgumentException
+                    print("An error occured with timed event " + eventName, "YELLOW");
+                    continue;
+                }
+                // the first turn is 1 so an event on an earlier turn would never happen
+                if (event.dueTurn < 1 || event.repeatTurns < 0) {
+                    print("timed event " + eventName + " should happen on turn 1 or later and repeat every 0 or more turns", "YELLOW");
+                    continue;
+                }
+                scheduleEvent(event);
+            }
+        }
+        // no warning if the folder is missing, the game can be played without timed events
+    }
+    
+    void tickTimedEvents() {
+        // called once every turn from the game loop
+        turn++;
+        for (TimingWheel.TimedEvent event: timingWheel.advance(turn)) {
+            fireEvent(event);
+            if (event.repeatTurns > 0) {
+                // put back into the wheel for the next time
+                scheduleEvent(event.repeatAfter(turn));
+            }
+        }
+        if (sharedWorld != null) {
+            // the shared station's timed events happen on turns taken by anyone on it
+            sharedWorld.endTurn();
+            showStationEvents();
+        }
+    }
+    
+    void showStationEvents() {
+        // what the shared station's timed events did since this player's last turn
+        for (SharedWorld.Happening happening: sharedWorld.happenedSince(shownHappenings)) {
+            if (happening.room == null || happening.room.equals(currentRoom)) {
+                print(""); // formatting
+                print(happening.text, happening.colour);
+                print(""); // formatting
+            }
+            shownHappenings = happening.number + 1;
+        }
+        String lostText = sharedWorld.lostText;
+        if (lostText != null && !gameOver) {
+            print(""); // formatting
+            print(lostText, "RED");
+            gameOver = true;
+        }
+    }
+    
+    void fireEvent(TimingWheel.TimedEvent event) {
+        TimedEventType eventType = event.type;
+        String interactName = event.interactName;
+        String text = event.text;
+        if (eventType == TimedEventType.WARNING) {
+            print(""); // formatting
+            print(text, "MAGENTA");
+            print(""); // formatting
+        } else if (eventType == TimedEventType.TOGGLE) {
+            String[] info = findInteract(interactName);
+            if (info == null) {
+                print("timed event tried to use an interactable that does not exist", "RED");
+                return;
+            }
+            if (!text.equals("")) {
+                print(text, "MAGENTA");
+            }
+            toggleInteract(info);
+        } else if (eventType == TimedEventType.RELOCK) {
+            String[] info = findInteract(interactName);
+            // only close if it is still open from the same time (it might have been closed and opened again since)
+            boolean stillOpen = info != null && roomInDirection(info[0], info[2]) != null;
+            Integer openedTurn = interactOpenedTurn.get(interactName);
+            if (stillOpen && openedTurn != null && openedTurn == event.openedTurn) {
+                toggleInteract(info);
+            }
+        } else if (eventType == TimedEventType.GAMEOVER) {
+            print(""); // formatting
+            print(text, "RED");
+            gameOver = true;
+        }
+    }
+    
+    // Crew methods
+    
+    void applyCrew() {
+        // get the folder for crew members
+        File crewFolder = new File(packFolder, "Crew");
+        if (!crewFolder.exists()) {
+            // the game can be played without crew
+            return;
+        }
+        // seed (config/crewSeed.txt) makes the crew do the same thing every run, random if there is no seed
+        long seed = System.nanoTime();
+        if (currentSettings.crewSeed != null) {
+            // already checked to be a number when it was loaded
+            seed = currentSettings.crewSeed;
+        }
+        crew = new CrewSimulation(this, seed);
+        // Create a list of contained files
+        File[] crewFiles = crewFolder.listFiles();
+        // sort so crew members get the same id every run
+        Arrays.sort(crewFiles);
+        for (File crewFile: crewFiles) {
+            String crewName = crewFile.getName();
+            // delete .txt from name
+            crewName = crewName.substring(0, crewName.length()-4);
+            Scanner readFile;
+            try {
+                // Safely open the file
+                readFile = new Scanner(crewFile);
+            } catch (IOException error) {
+                print("failed to load crew member " + crewName, "YELLOW");
+                print(error.getClass().getCanonicalName(), "RED");
+                // continue because opening has failed and non essential part of text adventure
+                continue;
+            }
+            // first line is a comment, second line is the starting room
+            String startRoom = null;
+            if (readFile.hasNextLine()) {
+                readFile.nextLine();
+            }
+            if (readFile.hasNextLine()) {
+                startRoom = readFile.nextLine();
+            }
+            if (startRoom == null || roomDictionary.get(startRoom) == null) {
+                print("crew member " + crewName + " starts in a room that does not exist", "YELLOW");
+                continue;
+            }
+            crew.addCrewMember(crewName, startRoom);
+        }
+    }
+    
+    void stepCrew() {
+        // crew take a turn when the player does
+        if (crew == null) {
+            return;
+        }
+        ArrayList<String> seen = crew.step(currentRoom);
+        for (String line: seen) {
+            print(line, "MAGENTA");
+        }
+    }
+    
+    void printCrewInRoom(String room) {
+        if (crew == null) {
+            return;
+        }
+        ArrayList<String> crewInRoom = crew.crewInRoom(room);
+        // if statement otherwise will just say "Crew in this room:" then empty
+        if (crewInRoom.size() > 0) {
+            print("Crew in this room:");
+            print(crewInRoom, "CYAN");
+        }
+    }
+    
     // Inventory methods
     
+    void joinSharedWorld(SharedWorld world) {
+        // rooms, items and doors come from the shared world from now on, only the inventory is this player's
+        sharedWorld = world;
+        inventoryName = "Inventory " + gameName;
+        world.addPlayer(inventoryName);
+        // the game's own copies would go out of date, null so anything still using them fails straight away
+        itemsDictionary = null;
+        directionDictionary = null;
+        // the shared station has no crew, each player's crew would move the shared items on that player's turns
+        crew = null;
+        // timed events happen on the station's own wheel, so each player's copy of them is not used
+        timingWheel = new TimingWheel();
+        shownHappenings = world.happenedCount();
+    }
+    
+    void leaveSharedWorld() {
+        if (sharedWorld != null) {
+            sharedWorld.removePlayer(inventoryName, currentRoom);
+        }
+    }
+    
+    ArrayList<String> itemsIn(String room) {
+        // items in a room, a copy when the room is shared so it can be read while other players change it
+        if (sharedWorld != null) {
+            return sharedWorld.itemsIn(room);
+        }
+        return itemsDictionary.get(room);
+    }
+    
+    boolean moveItem(String from, String to, String item) {
+        // moves an item between rooms (or a room and the inventory), returns false if it was not there
+        if (sharedWorld != null) {
+            // all at once so two players cannot both pick up the same item
+            return sharedWorld.moveItem(from, to, item);
+        }
+        if (!removeItem(from, item)) {
+            return false;
+        }
+        addItem(to, item);
+        return true;
+    }
+    
     void addItem(String room, String item) {
         // method adds item to room
+        if (sharedWorld != null) {
+            sharedWorld.addItem(room, item);
+            return;
+        }
         
         // Get all current items in room
         ArrayList<String> roomItems = itemsDictionary.get(room);
         roomItems.add(item);
+        itemChanged(room);
         // don't need to set item array to dictionary as it is already changed when added item
     }
     
     boolean removeItem(String room, String item) {
+        if (sharedWorld != null) {
+            return sharedWorld.removeItem(room, item);
+        }
         boolean success = false;
         ArrayList<String> roomItems = itemsDictionary.get(room);
         int itemIndex = roomItems.indexOf(item);
         // return value -1 means not found
         if (itemIndex != -1) {
             roomItems.remove(itemIndex);
+            itemChanged(room);
             success = true;
         }
         return success;
@@ -624,30 +1251,95 @@ public class SpaceStationTextAdventure
     
     void addInventory(String item) {
         // add item to dummy room Inventory
-        addItem("Inventory", item);
+        addItem(inventoryName, item);
     }
     
     boolean removeInventory(String item) {
         // remove item from dummy room Inventory
-        return removeItem("Inventory", item);
+        return removeItem(inventoryName, item);
     }
     
     boolean hasItem(String item) {
          // check if dummy room Inventory contains item
+        if (sharedWorld != null) {
+            return sharedWorld.hasItem(inventoryName, item);
+        }
         ArrayList<String> roomItems = itemsDictionary.get("Inventory");
         return roomItems.contains(item);
     }
     
     void printItemsInRoom(String room) {
         // list all items in dummy room
-        ArrayList<String> roomItems = itemsDictionary.get(room);
+        ArrayList<String> roomItems = itemsIn(room);
         print("Items in this room:");
         
         print(roomItems, "CYAN");
     }
     
+    void itemChanged(String room) {
+        // one version for the inventory and one for every other room, so a crew member moving an item
+        // somewhere else does not print the inventory again
+        if (room.equals(inventoryName)) {
+            inventoryVersion.incrementAndGet();
+        } else {
+            itemsVersion.incrementAndGet();
+        }
+    }
+    
+    int itemsVersion(String room) {
+        // changes whenever the items in the room might have changed
+        if (sharedWorld != null) {
+            return sharedWorld.version(room);
+        }
+        return room.equals(inventoryName) ? inventoryVersion.get() : itemsVersion.get();
+    }
+    
+    int directionsVersion(String room) {
+        if (sharedWorld != null) {
+            return sharedWorld.version(room);
+        }
+        return directionsVersion.get();
+    }
+    
+    void printStatus() {
+        // the room the player is in and what they can do there, only the sections that changed are printed
+        print("=".repeat(25), "GREEN");
+        print("You are currently in " + currentRoom, "GREEN");
+        print("");
+        if (broadcast != null && broadcast.newSpectator) {
+            // someone started watching, show them everything
+            broadcast.newSpectator = false;
+            redrawStatus = true;
+        }
+        // versions are read before printing so a change made while printing shows next turn
+        int newDirectionsVersion = directionsVersion(currentRoom);
+        int newItemsVersion = itemsVersion(currentRoom);
+        int newInventoryVersion = itemsVersion(inventoryName);
+        boolean roomChanged = redrawStatus || !currentRoom.equals(shownRoom);
+        if (roomChanged) {
+            // interactables never change so they only need printing in a new room
+            printInteractsInRoom(currentRoom);
+        }
+        if (roomChanged || newDirectionsVersion != shownDirectionsVersion) {
+            printDirections();
+        }
+        if (roomChanged || newItemsVersion != shownItemsVersion) {
+            printItemsInRoom(currentRoom);
+        }
+        // crew walk around every turn
+        printCrewInRoom(currentRoom);
+        if (redrawStatus || newInventoryVersion != shownInventoryVersion) {
+            printInventory();
+        }
+        shownRoom = currentRoom;
+        shownDirectionsVersion = newDirectionsVersion;
+        shownItemsVersion = newItemsVersion;
+        shownInventoryVersion = newInventoryVersion;
+        redrawStatus = false;
+    }
+    
     void printInventory() {
-        ArrayList<String> roomItems = itemsDictionary.get("Inventory");
+        ArrayList<String> roomItems = itemsIn(inventoryName);
         print("Items in inventory:");
         // System.out.println(roomItems); just printing array list will display items in square brackets
         for (String item: roomItems) {
@@ -657,7 +1349,7 @@ public class SpaceStationTextAdventure
     
     boolean applyItemsToRoom(String roomName) {
         String folderName = roomName; // folder name is same as room name
-        File itemsFile = new File("Rooms\\"+folderName+"\\items.txt");
+        File itemsFile = new File(packFolder, "Rooms" + File.separator + folderName + File.separator + "items.txt");
         Scanner readFile;
         try {
             // Safely open the file
@@ -681,11 +1373,100 @@ public class SpaceStationTextAdventure
         return true; // success
     }
     
+    // Methods to do with idle games
+    
+    String readLine() {
+        // every line the player types comes through here
+        boolean locked = sessionLock.isHeldByCurrentThread();
+        waitingForInput = true;
+        if (locked) {
+            sessionLock.unlock();
+        }
+        String userInput;
+        try {
+            userInput = keyboard.nextLine();
+        } finally {
+            if (locked) {
+                sessionLock.lock();
+            }
+            waitingForInput = false;
+        }
+        lastInputTime = System.currentTimeMillis();
+        if (passiveFile != null) {
+            // saved while the player was away
+            activate();
+        }
+        if (broadcast != null) {
+            broadcast.endTurn(userInput);
+        }
+        return userInput;
+    }
+    
+    boolean passivate(File file, long idleMillis, long budgetBytes) {
+        // called by the server, if the game has been waiting for longer than idleMillis or is using more than
+        // budgetBytes it is saved to the file and the rooms and events are let go of
+        // returns false if the game is busy, does not need saving or could not be saved
+        if (pack == null || !sessionLock.tryLock()) {
+            return false;
+        }
+        try {
+            if (!waitingForInput || passiveFile != null) {
+                return false;
+            }
+            boolean idle = System.currentTimeMillis() - lastInputTime > idleMillis;
+            if (!idle && SessionStore.estimateMemory(this) <= budgetBytes) {
+                return false;
+            }
+            SessionStore.save(this, file);
+            passiveFile = file;
+            directionDictionary = null;
+            itemsDictionary = null;
+            timingWheel = null;
+            interactOpenedTurn = null;
+            map = null; // drawn again if the player asks for it
+            if (broadcast != null) {
+                // spectators only need the latest turn
+                broadcast.trim();
+            }
+            return true;
+        } catch (IOException error) {
+            System.out.println("could not save " + gameName + ": " + error.getClass().getCanonicalName());
+            return false;
+        } finally {
+            sessionLock.unlock();
+        }
+    }
+    
+    long memoryUsed() {
+        // estimated bytes used by this game, -1 if it is busy with a command and cannot be measured
+        if (!sessionLock.tryLock()) {
+            return -1;
+        }
+        try {
+            return SessionStore.estimateMemory(this);
+        } finally {
+            sessionLock.unlock();
+        }
+    }
+    
+    void activate() {
+        // load the game saved by passivate
+        if (!SessionStore.restore(this, passiveFile)) {
+            print("your saved game could not be loaded, the station has started again", "YELLOW");
+        }
+        passiveFile.delete();
+        passiveFile = null;
+    }
+    
     // Instruction methods
     void waitForInput() {
         // wait for input
+        if (keyboard == null) {
+            // only loading the station, nobody to press enter
+            return;
+        }
         print("press enter to continue", "YELLOW");
-        keyboard.nextLine();
+        readLine();
     }
     
     void howToPlay() {
@@ -696,6 +1477,7 @@ public class SpaceStationTextAdventure
         }
         waitForInput();
         print("to get the description of the current room, type 'description'");
+        print("(only what has changed is shown after each command, 'description' shows everything again)");
         print("for the description of an item, type the 'description ' and items name");
         waitForInput();
         print("pick up an item with, 'pickup ' and item name");
@@ -703,10 +1485,12 @@ public class SpaceStationTextAdventure
         print("use an item with 'use ' and item name");
         waitForInput();
         print("to interact, type 'interact ' and item name");
+        print("to see a map of the floor you are on, type 'map'");
         waitForInput();
         print("to toggle clear screen, type 'setting clearScreen (true/false)'");
+        print("to see every setting, type 'setting'");
         waitForInput();
-        if (System.console() != null) {
+        if (console) {
             // console attached
             print("if the text on screen is odd (random square brackets), try disabling coloured text");
             print("to toggle coloured text, type 'setting colours (true/false)'");
@@ -717,17 +1501,8 @@ public class SpaceStationTextAdventure
     }
     
     void introduction() {
-        // print introduction
-        String intro = configurations.get("introduction");
-        String[] introArr = intro.split("\n");
-        
-        for (String line: introArr) {
-            if (line.equals("waitForInput();")) {
-                waitForInput();
-            } else {
-                print(line);
-            }
-        }
+        // print introduction, compiled from config/introduction.txt when the station was loaded
+        printStory(introductionStory, null);
     }
     
     // Command methods
@@ -749,7 +1524,7 @@ public class SpaceStationTextAdventure
         boolean validInput = false;
         while (!validInput) {
             print("Input a command", "GREEN");
-            String userInput = keyboard.nextLine();
+            String userInput = readLine();
             
             // Checks if input is a direction
             // if user types "north" move north, not "move north"
@@ -824,36 +1599,232 @@ public class SpaceStationTextAdventure
             
             if (!validInput) {
                 print("Not a command", "RED");
+                suggestCommand(userInput);
+                logEvent("INVALID", userInput, currentRoom, false, "Not a command");
             }
         }
         CommandResult returnPackage = new CommandResult(commandType, commandInstruction);
         return returnPackage;
     }
+    void buildSuggestions() {
+        // put every name the player can type into the trees, called once after the station is loaded
+        commandTree = new BKTree();
+        for (CommandType type: CommandType.values()) {
+            commandTree.add(type.name().toLowerCase());
+        }
+        for (String direction: DIRECTIONSLIST) {
+            commandTree.add(direction);
+        }
+        
+        itemTree = new BKTree();
+        Enumeration<String> rooms = itemsDictionary.keys();
+        while (rooms.hasMoreElements()) {
+            for (String item: itemsDictionary.get(rooms.nextElement())) {
+                itemTree.add(item);
+            }
+        }
+        // items that are only described or used could still be picked up from a crew member
+        Enumeration<String> items = itemDescriptionDictionary.keys();
+        while (items.hasMoreElements()) {
+            itemTree.add(items.nextElement());
+        }
+        items = useItemsDictionary.keys();
+        while (items.hasMoreElements()) {
+            itemTree.add(items.nextElement());
+        }
+        
+        interactTree = new BKTree();
+        roomTree = new BKTree();
+        rooms = interactDictionary.keys();
+        while (rooms.hasMoreElements()) {
+            String room = rooms.nextElement();
+            roomTree.add(room);
+            Enumeration<String> interacts = interactDictionary.get(room).keys();
+            while (interacts.hasMoreElements()) {
+                interactTree.add(interacts.nextElement());
+            }
+        }
+    }
+    
+    void suggest(BKTree tree, String typed, String command) {
+        // prints "Did you mean 'pickup potato'?" if there is a name close to what was typed
+        if (tree == null || typed.isEmpty()) {
+            return;
+        }
+        String closest = tree.closest(typed);
+        if (closest != null && !closest.equals(typed)) {
+            print("Did you mean '" + command + closest + "'?", "YELLOW");
+        }
+    }
+    
+    void suggestCommand(String userInput) {
+        if (commandTree == null || userInput.trim().isEmpty()) {
+            return;
+        }
+        // check the first word is a misspelt command, the rest is kept as it was typed
+        String[] words = userInput.trim().split(" ", 2);
+        String closest = commandTree.closest(words[0]);
+        if (closest != null) {
+            String rest = words.length > 1 ? " " + words[1] : "";
+            print("Did you mean '" + closest + rest + "'?", "YELLOW");
+            return;
+        }
+        // the player might have typed where they want to go instead of the direction
+        String room = roomTree.closest(userInput.replace(" ", ""));
+        if (room == null) {
+            return;
+        }
+        Dictionary<String, String> directions = directionsIn(currentRoom);
+        Enumeration<String> keys = directions.keys();
+        while (keys.hasMoreElements()) {
+            String direction = keys.nextElement();
+            if (room.equals(directions.get(direction))) {
+                print("Did you mean '" + direction + "' (to " + room + ")?", "YELLOW");
+                return;
+            }
+        }
+    }
+    
+    void logEvent(String commandType, String instruction, String roomBefore, boolean success, String outcome) {
+        // the room after is the current room
+        if (eventLog != null) {
+            eventLog.log(gameName, turn, commandType, instruction, roomBefore, currentRoom, success, outcome);
+        }
+    }
+    
     public static void main(String[] args) {
         // will run when accessed from .jar file
         // run text adventure as class from separate main function to get around accessing non-static variables and methods from static context
-        SpaceStationTextAdventure adventure = new SpaceStationTextAdventure();
+        SpaceStationTextAdventure adventure = new SpaceStationTextAdventure(new File("."), true, args);
     }
     /**
      * Constructor for objects of class Space_Station_Text_Adventure
      */
     public SpaceStationTextAdventure()
     {
-        clearScreen();
+        this(true);
+    }
+    
+    /**
+     * Constructor that only loads the station if playGame is false
+     * used by tools like the crew benchmark that need the rooms but not the game
+     */
+    public SpaceStationTextAdventure(boolean playGame)
+    {
+        this(new File("."), playGame);
+    }
+    
+    /**
+     * Constructor that loads the station from a different folder (a world pack)
+     */
+    public SpaceStationTextAdventure(File packFolder, boolean playGame)
+    {
+        this(packFolder, playGame, new String[0]);
+    }
+    
+    /**
+     * Constructor with settings from the command line, each one name=value
+     */
+    public SpaceStationTextAdventure(File packFolder, boolean playGame, String[] commandLineSettings)
+    {
+        this.packFolder = packFolder;
+        this.commandLineSettings = commandLineSettings;
+        useSettings(new Settings());
+        if (playGame) {
+            clearScreen();
+        } else {
+            keyboard = null;
+        }
+        boolean success = loadStation();
+        if (success && playGame) {
+            applySavedSettings();
+            if (currentSettings.eventLog) {
+                eventLog = new EventLog(new File(packFolder, "logs"));
+            }
+            play();
+            if (eventLog != null) {
+                eventLog.close();
+            }
+        }
+    }
+    
+    /**
+     * Constructor for a new game of a station that is already loaded
+     * the dictionaries that never change are shared with the pack, the ones the game changes are copied
+     * call play() to start the game
+     */
+    public SpaceStationTextAdventure(SpaceStationTextAdventure pack, Scanner keyboard, PrintStream out)
+    {
+        this.keyboard = keyboard;
+        this.out = out;
+        this.packFolder = pack.packFolder;
+        this.pack = pack;
+        
+        // never changed after loading so every game can use the same ones
+        roomDictionary = pack.roomDictionary;
+        descriptionDictionary = pack.descriptionDictionary;
+        interactDictionary = pack.interactDictionary;
+        itemDescriptionDictionary = pack.itemDescriptionDictionary;
+        coloursDictionary = pack.coloursDictionary;
+        newRoomDictionary = pack.newRoomDictionary;
+        introductionStory = pack.introductionStory;
+        gameCompleteStory = pack.gameCompleteStory;
+        useItemsDictionary = pack.useItemsDictionary;
+        rules = pack.rules;
+        mapLayout = pack.mapLayout;
+        
+        // changed by the game so each game needs its own
+        copyRooms(pack);
+        // settings can be changed with the setting command
+        useSettings(pack.settings.copy());
+        // events are never changed once scheduled so only the slots need copying
+        timingWheel = pack.timingWheel.copy();
+        if (pack.crew != null) {
+            crew = pack.crew.copyFor(this);
+        }
+        // only read after loading so they can be shared
+        commandTree = pack.commandTree;
+        itemTree = pack.itemTree;
+        interactTree = pack.interactTree;
+        roomTree = pack.roomTree;
+        currentRoom = currentSettings.startingRoom;
+    }
+    
+    void copyRooms(SpaceStationTextAdventure pack) {
+        // the game's own directions and items, starting the same as the loaded world
+        directionDictionary = new Hashtable<>();
+        Enumeration<String> rooms = pack.directionDictionary.keys();
+        while (rooms.hasMoreElements()) {
+            String room = rooms.nextElement();
+            directionDictionary.put(room, new Hashtable<>((Hashtable<String, String>) pack.directionDictionary.get(room)));
+        }
+        itemsDictionary = new Hashtable<>();
+        rooms = pack.itemsDictionary.keys();
+        while (rooms.hasMoreElements()) {
+            String room = rooms.nextElement();
+            itemsDictionary.put(room, new ArrayList<>(pack.itemsDictionary.get(room)));
+        }
+    }
+    
+    boolean loadStation() {
+        // read every folder into the dictionaries, returns false if an essential part failed to load
         applyConfigurations();
         initColours();
+        // story text needs the colours to compile
+        introductionStory = compileStory("config/introduction.txt", currentSettings.introduction);
+        gameCompleteStory = compileStory("config/gameCompleteText.txt", currentSettings.gameCompleteText);
         
         descriptionDictionary = new Hashtable<>();
         // INITALISE VARIABLES
         // get the file for rooms
-        File roomFolder = new File("Rooms");
+        File roomFolder = new File(packFolder, "Rooms");
         // Create a list of contained files
         File[] roomsFiles = roomFolder.listFiles();
         if (roomsFiles == null) {
             print("ERROR: no room files were found", "RED");
             print("make sure there is a folder 'Rooms' in the same directory", "RED");
             print("otherwise, make sure you are running the program with the current directory as the jar file directory");
-            return;
+            return false;
         }
         // used to check if methods are successful
         boolean success;
@@ -866,14 +1837,14 @@ public class SpaceStationTextAdventure
             // functions that return a success boolean are functions which are required to run successfully
             success = applyDirectionsToRoom(roomName);
             if (!success) {
-                return;
+                return false;
             }
             
             applyDescriptionToRoom(roomName); // don't check for success because can still use program without room descriptions
             
             success = applyItemsToRoom(roomName);
             if (!success) {
-                return;
+                return false;
             }
             
             // Add each room to interactDictionary
@@ -885,19 +1856,41 @@ public class SpaceStationTextAdventure
         success = applyInteracts();
         if (!success) {
             print("otherwise, make sure you are running the program with the current directory as the jar file directory");
-            return; // program failure
+            return false; // program failure
         }
         
         applyItemDescriptions(); // add information to the program about item descriptions
         applyRoomSequences(); // add information to the program about using room sequences from the RoomSequences folder
         applyUseItems(); // add information to the program about using items from the UseItems folder
+        applyRules(); // add rules from the Rules folder, needs the rooms to be loaded first
+        applyTimedEvents(); // add events that happen after some turns from the TimedEvents folder
         
         success = startingRoomExists();
         if (!success) {
-            return;
+            return false;
+        }
+        currentRoom = currentSettings.startingRoom;
+        
+        applyCrew(); // add crew members from the Crew folder, needs the rooms to be loaded first
+        buildSuggestions(); // names for "did you mean" suggestions, needs everything else to be loaded first
+        mapLayout = new StationMap.Layout(this); // needs the rooms and interactables
+        return true; // success
+    }
+    
+    void play() {
+        // the session lock is held while the game runs, except while waiting for input (see readLine)
+        sessionLock.lock();
+        try {
+            playGame();
+        } finally {
+            sessionLock.unlock();
         }
-        final String STARTINGROOM = configurations.get("startingRoom");
-        currentRoom = STARTINGROOM;
+    }
+    
+    void playGame() {
+        // used to check if methods are successful
+        boolean success;
+        final String STARTINGROOM = currentSettings.startingRoom;
         
         // INSTRUCTIONS
         if (true) {
@@ -911,72 +1904,84 @@ public class SpaceStationTextAdventure
         
         // START MAIN GAME LOOP
         
-        boolean gameComplete = false;
-        
-        while (!gameComplete) {
-            // Separator between last action
-            print("=".repeat(25), "GREEN");
-            print("You are currently in " + currentRoom, "GREEN");
-            print("");
-            printInteractsInRoom(currentRoom);
-            printDirections();
-            printItemsInRoom(currentRoom);
-            printInventory();
+        while (!gameComplete && !gameOver) {
+            // Separator between last action, then what has changed in the room
+            printStatus();
             CommandResult command = returnCommand();
             CommandType commandType = command.type; // enum
             String commandInstruction = command.instructions; // extra instructions
-            if (Boolean.parseBoolean(configurations.get("clearScreen"))) {
+            // saved in the event log
+            String roomBefore = currentRoom;
+            boolean commandSuccess = false;
+            String outcome = "";
+            if (currentSettings.clearScreen) {
                 /* if clearScreen == "true":
                  * clear screen
-                 * else clearScreen == "false" or null (not found in config folder, turns into false in parseBoolean):
+                 * else clearScreen == "false" or not found in config folder:
                  * continue program
                  */
                 clearScreen();
+                // nothing from the last status is on screen any more
+                redrawStatus = true;
             }
             if (commandType == CommandType.DIRECTION) {
                 String direction = commandInstruction;
                 
-                success = moveDir(direction);
+                String room = moveDir(direction);
+                success = room != null;
+                commandSuccess = success;
                 if (success) {
                     print("Moving " + direction, "YELLOW");
+                    outcome = "Moving";
+                    enterRoom(room);
                 } else {
                     print("No room in this direction!", "RED");
-                }
-                // Check for "room sequence", like a cutscene to tell the player extra useful info
-                String sequence = hasRoomSequence(currentRoom);
-                if (sequence != null) {
-                    // exists
-                    print(""); // formatting
-                    print(sequence, "YELLOW");
-                    waitForInput(); 
+                    outcome = "No room in this direction!";
+                    // the room's sequence again, to remind the player
+                    showRoomSequence(currentRoom);
                 }
             } else if (commandType == CommandType.DESCRIPTION) {
+                commandSuccess = true;
                 if (commandInstruction == "") {
-                    // empty so print room description
+                    // empty so print room description, and everything in the room next turn
                     readDescription(currentRoom);
+                    redrawStatus = true;
+                    outcome = "room description";
                 } else if (hasItem(commandInstruction)) {
                     // not empty so print item description if is holding it
                     readItemDescription(commandInstruction);
+                    outcome = "item description";
                 } else {
                     print("You do not have this item...", "YELLOW");
+                    suggest(itemTree, commandInstruction, "description ");
+                    commandSuccess = false;
+                    outcome = "You do not have this item...";
                 }
             } else if (commandType == CommandType.PICKUP || commandType == CommandType.GET) {
                 String item = commandInstruction;
-                success = removeItem(currentRoom, item);
+                success = moveItem(currentRoom, inventoryName, item);
+                commandSuccess = success;
                 if (success) {
                     print("The item was added to inventory!", "YELLOW");
-                    addInventory(item);
+                    outcome = "The item was added to inventory!";
+                    rules.fire(this, "pickup", item);
                 } else {
                     print("The item does not exist!", "RED");
+                    suggest(itemTree, item, "pickup ");
+                    outcome = "The item does not exist!";
                 }
             } else if (commandType == CommandType.DROP) {
                 String item = commandInstruction;
-                success = removeInventory(item);
+                success = moveItem(inventoryName, currentRoom, item);
+                commandSuccess = success;
                 if (success) {
                     print("The item was dropped!", "YELLOW");
-                    addItem(currentRoom, item);
+                    outcome = "The item was dropped!";
+                    rules.fire(this, "drop", item);
                 } else {
                     print("The item does not exist!", "RED");
+                    suggest(itemTree, item, "drop ");
+                    outcome = "The item does not exist!";
                 }
             } else if (commandType == CommandType.USE) {
                 String object = commandInstruction;
@@ -984,81 +1989,110 @@ public class SpaceStationTextAdventure
                 // check the user is using an item they are actually holding
                 if (hasItem(object)) {
                     String[] useItemInfo = getUseItem(object);
-                    if (useItemInfo != null) {
+                    if (rules.fire(this, "use", object)) {
+                        // a rule replaces what the item would normally do
+                        commandSuccess = true;
+                        outcome = "rule";
+                    } else if (useItemInfo != null) {
                         OnInteract itemEnum = OnInteract.valueOf(useItemInfo[0]); // get enum as string and change to enum
                         String roomName = useItemInfo[1];
                         String extraInfo = useItemInfo[2];
                         if (itemEnum == OnInteract.COMPLETEGAME && currentRoom.equals(roomName)) {
                             gameComplete = true;
+                            commandSuccess = true;
+                            outcome = itemEnum.name();
                         } else if (itemEnum == OnInteract.TELEPORT && currentRoom.equals(roomName)) {
                             print(extraInfo, "YELLOW"); // info like "you teleported!" to user
                             removeInventory(object);
-                            currentRoom = STARTINGROOM;
+                            enterRoom(STARTINGROOM);
+                            commandSuccess = true;
+                            outcome = itemEnum.name();
                         } else if (itemEnum == OnInteract.HINT && currentRoom.equals(roomName)) {
                             print(extraInfo, "YELLOW");
+                            commandSuccess = true;
+                            outcome = itemEnum.name();
                         } else {
                             // more likely to be error but just incase
                             print("It did nothing", "YELLOW");
+                            outcome = "It did nothing";
                         }
                     } else {
                         // no data so does nothing
                         print("It did nothing", "RED");
+                        outcome = "It did nothing";
                     }
                 } else {
                     // Not holding this
                     print("You are not holding this...", "RED");
+                    suggest(itemTree, object, "use ");
+                    outcome = "You are not holding this...";
                 }
             } else if (commandType == CommandType.INTERACT) {
                 String object = commandInstruction;
                 String[] info = getInteractInRoom(currentRoom, object);
-                if (info == null) {
+                if (rules.fire(this, "interact", object)) {
+                    // a rule replaces toggling the interactable, and can be for a name with no interactable file
+                    commandSuccess = true;
+                    outcome = "rule";
+                } else if (info == null) {
                     // not found
                     print("The object does not exist", "RED");
+                    suggest(interactTree, object, "interact ");
+                    outcome = "The object does not exist";
                 } else {
-                    String startingRoom = info[0];
-                    String leadsTo = info[1];
-                    String direction = info[2];
-                    String enabledText = info[3];
-                    String disabledText = info[4];
-                    print(""); // formatting
-                    // toggles directions
-                    // IF: pathway exists between starting room and destination
-                    // delete the pathway (e.g. gravity turned on, cannot float to room above)
-                    // ELSE: (pathway does not exist between starting room and destination)
-                    // create pathway (e.g. gravity turned off, can float to room above)
-                    if (roomInDirection(startingRoom, direction) != null) {
-                        // already exists so revert changes
-                        print(disabledText, "YELLOW");
-                        delDirection(startingRoom, direction);
-                    } else {
-                        print(enabledText, "YELLOW");
-                        addDirection(startingRoom, direction, leadsTo);
-                    }
-                    print(""); // formatting
+                    toggleInteract(info);
+                    commandSuccess = true;
+                    outcome = "toggled";
                 }
+            } else if (commandType == CommandType.MAP) {
+                out.print(map().render(currentRoom));
+                commandSuccess = true;
+                outcome = "map";
             } else if (commandType == CommandType.HELP) {
                 howToPlay();
+                commandSuccess = true;
             } else if (commandType == CommandType.SETTING) {
                 String[] settingArr = commandInstruction.split(" ");
-                if (settingArr.length == 2) {
+                if (commandInstruction.trim().isEmpty()) {
+                    // list the settings that can be changed
+                    for (String line: settings.describe()) {
+                        print(line, "CYAN");
+                    }
+                    commandSuccess = true;
+                    outcome = "settings listed";
+                } else if (settingArr.length == 2) {
                     String setting = settingArr[0]; // setting to change
                     String value = settingArr[1]; // new setting value
-                    if (configurations.get(setting) != null) {
-                        // setting already has a value so change
-                        configurations.put(setting, value);
+                    // checked against the setting's type, the listener updates currentSettings
+                    String problem = settings.change(setting, value);
+                    if (problem == null) {
                         print("setting changed", "YELLOW");
+                        commandSuccess = true;
+                        outcome = "setting changed";
                     } else {
-                        // setting not found
-                        print("no setting found", "RED");
+                        print(problem, "RED");
+                        outcome = problem;
                     }
                 } else {
                     print("incorrect parameters, please use setting 'setting name' 'setting value'", "RED");
+                    outcome = "incorrect parameters";
                 }
             } else {
                 // Idealy would never occur but just in case
                 print("an error occured", "RED");
             }
+            logEvent(commandType.name(), commandInstruction, roomBefore, commandSuccess, outcome);
+            if (commandType != CommandType.HELP && commandType != CommandType.SETTING && commandType != CommandType.MAP && !gameComplete) {
+                // help, settings and the map are not part of the game so they do not take a turn
+                tickTimedEvents();
+                stepCrew();
+            }
+        }
+        if (gameOver) {
+            // lost the game, the timed event has already printed what happened
+            logEvent("GAMEOVER", "", currentRoom, false, "GAMEOVER");
+            return;
         }
-        print(configurations.get("gameCompleteText"), "GREEN"); // print text stored in config/gameCompleteText.txt which is stored in configrations in program
+        printStory(gameCompleteStory, "GREEN"); // print text stored in config/gameCompleteText.txt, compiled when the station was loaded
     }
 }
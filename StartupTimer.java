@@ -0,0 +1,113 @@
+/**
+ * Makes and times the class data sharing archive used by run.bat and run.sh to start the game faster.
+ *
+ * java StartupTimer train   plays training/playthrough.txt once and saves the loaded classes to station.jsa
+ * java StartupTimer (runs)  starts the game (runs) times with and without the archive and prints
+ *                           how long it took until the first "press enter to continue"
+ *
+ * the jar is the one run.bat and run.sh compile from the .java files, run one of them first
+ * the archive only works with the jar it was made from, train again after the jar is made again
+ * the training game sets crewSeed so the crew do the same thing every time and the playthrough always works
+ *
+ * @author agent
+ * @version 19/10/26
+ */
+
+import java.io.BufferedReader; // Read the game's output line by line
+import java.io.File; // Get files
+import java.io.IOException; // Handle file exceptions
+import java.io.InputStreamReader;
+import java.util.ArrayList; // Flexible sized array
+import java.util.Collections;
+
+public class StartupTimer
+{
+    static final String JAR = "build" + File.separator + "station.jar";
+    static final String ARCHIVE = "station.jsa";
+    static final String PLAYTHROUGH = "training" + File.separator + "playthrough.txt";
+    static final String TRAININGSEED = "crewSeed=1";
+
+    static String javaCommand() {
+        // same java that is running this program
+        return System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+    }
+
+    static void train() throws IOException, InterruptedException {
+        new File(ARCHIVE).delete();
+        ProcessBuilder builder = new ProcessBuilder(javaCommand(), "-XX:ArchiveClassesAtExit=" + ARCHIVE, "-jar", JAR, TRAININGSEED);
+        builder.redirectInput(new File(PLAYTHROUGH));
+        builder.redirectOutput(ProcessBuilder.Redirect.DISCARD);
+        builder.redirectError(ProcessBuilder.Redirect.INHERIT);
+        long startTime = System.nanoTime();
+        builder.start().waitFor();
+        long time = (System.nanoTime() - startTime) / 1000000;
+        if (new File(ARCHIVE).exists()) {
+            System.out.println("made " + ARCHIVE + " (" + new File(ARCHIVE).length() / 1024 + " KB) in " + time + "ms");
+        } else {
+            System.out.println("the archive was not made, check the output above");
+        }
+    }
+
+    static long timeToFirstPrompt(String... javaOptions) throws IOException {
+        // milliseconds from starting java to the first prompt, -1 if there was no prompt
+        ArrayList<String> command = new ArrayList<>();
+        command.add(javaCommand());
+        Collections.addAll(command, javaOptions);
+        command.add("-jar");
+        command.add(JAR);
+        ProcessBuilder builder = new ProcessBuilder(command);
+        builder.redirectError(ProcessBuilder.Redirect.DISCARD);
+        long startTime = System.nanoTime();
+        Process game = builder.start();
+        BufferedReader output = new BufferedReader(new InputStreamReader(game.getInputStream()));
+        long time = -1;
+        String line;
+        while ((line = output.readLine()) != null) {
+            if (line.contains("press enter to continue")) {
+                time = (System.nanoTime() - startTime) / 1000000;
+                break;
+            }
+        }
+        game.destroy();
+        return time;
+    }
+
+    static void report(String name, int runs, String... javaOptions) throws IOException {
+        ArrayList<Long> times = new ArrayList<>();
+        for (int run = 0; run < runs; run++) {
+            long time = timeToFirstPrompt(javaOptions);
+            if (time == -1) {
+                System.out.println(name + ": the game did not reach the first prompt");
+                return;
+            }
+            times.add(time);
+        }
+        Collections.sort(times);
+        System.out.println(name + ": median " + times.get(runs / 2) + "ms, fastest " + times.get(0) + "ms, slowest " + times.get(runs - 1) + "ms");
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (!new File(JAR).exists()) {
+            System.out.println(JAR + " not found, run from the project folder after run.bat or run.sh has made it");
+            return;
+        }
+        if (args.length > 0 && args[0].equals("train")) {
+            train();
+            return;
+        }
+        int runs = 10;
+        if (args.length > 0) {
+            runs = Integer.parseInt(args[0]);
+        }
+        System.out.println("time to first prompt over " + runs + " runs");
+        report("no class data sharing", runs, "-Xshare:off");
+        report("java's own archive only", runs, "-Xshare:auto");
+        if (new File(ARCHIVE).exists()) {
+            report("with " + ARCHIVE, runs, "-XX:SharedArchiveFile=" + ARCHIVE, "-Xshare:auto");
+            // what run.bat and run.sh use, the quick compiler is fast enough for a text adventure
+            report("with " + ARCHIVE + " and quick compiler only", runs, "-XX:SharedArchiveFile=" + ARCHIVE, "-Xshare:auto", "-XX:TieredStopAtLevel=1");
+        } else {
+            System.out.println(ARCHIVE + " not found, run 'java StartupTimer train' first");
+        }
+    }
+}
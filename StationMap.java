@@ -0,0 +1,286 @@
+/**
+ * An ASCII map of the floor the player is on, for the map command.
+ *
+ * where each room goes on the grid is worked out once when the station is loaded (the Layout), using every
+ * direction in the files and every direction an interactable can open, so rooms never move on the map
+ * east and west are along a line, north and south up and down the screen, up and down are separate floors
+ *
+ * each game (or shared station) keeps the drawing of every floor as an array of letters. when a
+ * direction is opened or closed only the letters for that link are changed, and maps already shown are
+ * forgotten, so asking for a map is usually just returning the one made last time
+ *
+ *     [   Hub         ]--[   PotatoFarm  ]
+ *             |
+ *     [  *Entrance    ]
+ *             v
+ *     [   Space       ]
+ *
+ * * is the player, ^ and v before the name mean there is a way up or down from the room
+ * an arrow between rooms (->, <-, v or ^) is a way that only goes one way, like into Space
+ * links from the floor's rooms to rooms that are not next to them on the map are listed under it
+ *
+ * @author agent
+ * @version 19/10/26
+ */
+
+import java.util.ArrayList; // Flexible sized array
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Dictionary;
+import java.util.Enumeration;
+import java.util.Hashtable;
+
+public class StationMap
+{
+    static final int NAMEWIDTH = 12; // longer names are cut short
+    static final int CELLWIDTH = NAMEWIDTH + 5; // [, up, down, player, name, ]
+    static final int GAP = 2; // letters between rooms for an east to west link
+    static final String[] DIRECTIONS = {"north", "south", "east", "west", "up", "down"};
+    // how x, y and floor change going in each direction, in the same order as DIRECTIONS
+    static final int[][] STEPS = {{0, -1, 0}, {0, 1, 0}, {1, 0, 0}, {-1, 0, 0}, {0, 0, 1}, {0, 0, -1}};
+
+    static class Layout {
+        // x, y and floor of every room
+        Hashtable<String, int[]> positions = new Hashtable<>();
+        // smallest x, largest x, smallest y and largest y on each floor
+        Hashtable<Integer, int[]> floors = new Hashtable<>();
+
+        Layout(SpaceStationTextAdventure station) {
+            // every direction that can ever exist, from the files and the interactables
+            Hashtable<String, Hashtable<String, String>> links = new Hashtable<>();
+            ArrayList<String> rooms = Collections.list(station.roomDictionary.keys());
+            Collections.sort(rooms); // same map every time
+            for (String room: rooms) {
+                links.put(room, new Hashtable<>());
+                Dictionary<String, String> directions = station.directionsIn(room);
+                Enumeration<String> keys = directions.keys();
+                while (keys.hasMoreElements()) {
+                    String direction = keys.nextElement();
+                    links.get(room).put(direction, directions.get(direction));
+                }
+            }
+            Enumeration<String> interactRooms = station.interactDictionary.keys();
+            while (interactRooms.hasMoreElements()) {
+                Dictionary<String, String[]> roomInteracts = station.interactDictionary.get(interactRooms.nextElement());
+                Enumeration<String[]> interacts = roomInteracts.elements();
+                while (interacts.hasMoreElements()) {
+                    // starting room, leads to, direction
+                    String[] info = interacts.nextElement();
+                    if (links.get(info[0]) != null) {
+                        links.get(info[0]).put(info[2], info[1]);
+                    }
+                }
+            }
+
+            // place rooms going out from the starting room, then any rooms that cannot be reached from it
+            // to the east of everything placed so far
+            Hashtable<String, String> taken = new Hashtable<>(); // "x,y,floor" to room
+            ArrayList<String> starts = new ArrayList<>();
+            if (station.currentSettings.startingRoom != null && links.get(station.currentSettings.startingRoom) != null) {
+                starts.add(station.currentSettings.startingRoom);
+            }
+            starts.addAll(rooms);
+            int nextX = 0;
+            for (String start: starts) {
+                if (positions.get(start) != null) {
+                    continue;
+                }
+                place(start, new int[] {nextX, 0, 0}, new int[] {1, 0, 0}, taken);
+                ArrayList<String> queue = new ArrayList<>();
+                queue.add(start);
+                for (int i = 0; i < queue.size(); i++) {
+                    String room = queue.get(i);
+                    int[] position = positions.get(room);
+                    for (int d = 0; d < DIRECTIONS.length; d++) {
+                        String leadsTo = links.get(room).get(DIRECTIONS[d]);
+                        if (leadsTo == null || links.get(leadsTo) == null || positions.get(leadsTo) != null) {
+                            continue;
+                        }
+                        int[] step = STEPS[d];
+                        place(leadsTo, new int[] {position[0] + step[0], position[1] + step[1], position[2] + step[2]}, step, taken);
+                        queue.add(leadsTo);
+                    }
+                }
+                for (String room: queue) {
+                    nextX = Math.max(nextX, positions.get(room)[0] + 2);
+                }
+            }
+            for (String room: rooms) {
+                int[] position = positions.get(room);
+                int[] bounds = floors.get(position[2]);
+                if (bounds == null) {
+                    floors.put(position[2], new int[] {position[0], position[0], position[1], position[1]});
+                } else {
+                    bounds[0] = Math.min(bounds[0], position[0]);
+                    bounds[1] = Math.max(bounds[1], position[0]);
+                    bounds[2] = Math.min(bounds[2], position[1]);
+                    bounds[3] = Math.max(bounds[3], position[1]);
+                }
+            }
+        }
+
+        void place(String room, int[] position, int[] step, Hashtable<String, String> taken) {
+            // if another room is already there keep going the same way until there is space
+            while (taken.get(position[0] + "," + position[1] + "," + position[2]) != null) {
+                position[0] += step[0];
+                position[1] += step[1];
+                position[2] += step[2];
+            }
+            taken.put(position[0] + "," + position[1] + "," + position[2], room);
+            positions.put(room, position);
+        }
+    }
+
+    Layout layout;
+    // directions that are open now, kept up to date by setDirection
+    Hashtable<String, Hashtable<String, String>> open = new Hashtable<>();
+    // the drawing of each floor without the player
+    Hashtable<Integer, char[]> drawings = new Hashtable<>();
+    // open links between rooms that are not next to each other, listed under the map of the floor they start on
+    Hashtable<Integer, ArrayList<String>> farLinks = new Hashtable<>();
+    // maps already made for a room, forgotten when anything changes
+    Hashtable<String, String> shown = new Hashtable<>();
+
+    StationMap(Layout layout, SpaceStationTextAdventure game) {
+        // draws every floor from the game's directions as they are now
+        this.layout = layout;
+        Enumeration<Integer> floorNumbers = layout.floors.keys();
+        while (floorNumbers.hasMoreElements()) {
+            int floor = floorNumbers.nextElement();
+            int[] bounds = layout.floors.get(floor);
+            int lineLength = lineLength(bounds);
+            char[] drawing = new char[lineLength * (2 * (bounds[3] - bounds[2]) + 1)];
+            Arrays.fill(drawing, ' ');
+            for (int i = lineLength - 1; i < drawing.length; i += lineLength) {
+                drawing[i] = '\n';
+            }
+            drawings.put(floor, drawing);
+            farLinks.put(floor, new ArrayList<>());
+        }
+        Enumeration<String> rooms = layout.positions.keys();
+        while (rooms.hasMoreElements()) {
+            String room = rooms.nextElement();
+            open.put(room, new Hashtable<>());
+            int[] position = layout.positions.get(room);
+            char[] drawing = drawings.get(position[2]);
+            int offset = offset(position);
+            drawing[offset] = '[';
+            drawing[offset + CELLWIDTH - 1] = ']';
+            String name = room.length() > NAMEWIDTH ? room.substring(0, NAMEWIDTH) : room;
+            name.getChars(0, name.length(), drawing, offset + 4);
+        }
+        rooms = layout.positions.keys();
+        while (rooms.hasMoreElements()) {
+            String room = rooms.nextElement();
+            Dictionary<String, String> directions = game.directionsIn(room);
+            Enumeration<String> keys = directions.keys();
+            while (keys.hasMoreElements()) {
+                String direction = keys.nextElement();
+                setDirection(room, direction, directions.get(direction));
+            }
+        }
+    }
+
+    synchronized void setDirection(String room, String direction, String leadsTo) {
+        // called when a direction is opened (leadsTo is where it goes) or closed (leadsTo is null)
+        Hashtable<String, String> roomLinks = open.get(room);
+        if (roomLinks == null) {
+            return;
+        }
+        String old = roomLinks.get(direction);
+        if (leadsTo == null) {
+            roomLinks.remove(direction);
+        } else {
+            roomLinks.put(direction, leadsTo);
+        }
+        if (old != null && !old.equals(leadsTo)) {
+            drawLink(room, direction, old);
+        }
+        if (leadsTo != null) {
+            drawLink(room, direction, leadsTo);
+        }
+        shown.clear();
+    }
+
+    void drawLink(String room, String direction, String leadsTo) {
+        // changes only the letters for this link
+        int d = Arrays.asList(DIRECTIONS).indexOf(direction);
+        int[] from = layout.positions.get(room);
+        int[] to = layout.positions.get(leadsTo);
+        if (d == -1 || to == null || room.equals(leadsTo)) {
+            // not a direction, a room that does not exist, or a room leading to itself (like Space)
+            return;
+        }
+        int[] step = STEPS[d];
+        boolean linked = leadsTo.equals(open.get(room).get(direction));
+        char[] drawing = drawings.get(from[2]);
+        if (direction.equals("up") || direction.equals("down")) {
+            // shown on the room itself, there can only be one room up and one room down
+            drawing[offset(from) + (direction.equals("up") ? 1 : 2)] = linked ? (direction.equals("up") ? '^' : 'v') : ' ';
+        }
+        boolean nextTo = to[0] == from[0] + step[0] && to[1] == from[1] + step[1] && to[2] == from[2] + step[2];
+        if (!nextTo) {
+            String line = room + " " + direction + " to " + leadsTo;
+            ArrayList<String> floorLinks = farLinks.get(from[2]);
+            floorLinks.remove(line);
+            if (linked) {
+                floorLinks.add(line);
+            }
+            return;
+        }
+        if (step[2] != 0) {
+            return;
+        }
+        // a line if both rooms lead to each other, an arrow if only one does
+        String back = DIRECTIONS[d ^ 1]; // opposite directions are next to each other in DIRECTIONS
+        boolean linkedBack = room.equals(open.get(leadsTo).get(back));
+        // the room furthest west or north, and whether it leads to the other and the other leads back
+        boolean forwards = step[0] > 0 || step[1] > 0;
+        int[] first = forwards ? from : to;
+        boolean firstLinked = forwards ? linked : linkedBack;
+        boolean secondLinked = forwards ? linkedBack : linked;
+        if (step[0] != 0) {
+            // east or west, the gap after the room furthest west
+            String line = firstLinked && secondLinked ? "--" : firstLinked ? "->" : secondLinked ? "<-" : "  ";
+            line.getChars(0, GAP, drawing, offset(first) + CELLWIDTH);
+        } else {
+            // north or south, under the room furthest north
+            int offset = offset(first) + lineLength(layout.floors.get(from[2])) + CELLWIDTH / 2;
+            drawing[offset] = firstLinked && secondLinked ? '|' : firstLinked ? 'v' : secondLinked ? '^' : ' ';
+        }
+    }
+
+    synchronized String render(String currentRoom) {
+        // the map of the player's floor, made once for each room until something changes
+        String map = shown.get(currentRoom);
+        if (map != null) {
+            return map;
+        }
+        int[] position = layout.positions.get(currentRoom);
+        if (position == null) {
+            return "There is no map of this room";
+        }
+        char[] drawing = drawings.get(position[2]).clone();
+        drawing[offset(position) + 3] = '*';
+        StringBuilder text = new StringBuilder();
+        text.append("Floor ").append(position[2]).append(" (* is you, ^ or v by a name is a way up or down, arrows between rooms only go one way)\n");
+        text.append(drawing);
+        for (String line: farLinks.get(position[2])) {
+            text.append(line).append('\n');
+        }
+        map = text.toString();
+        shown.put(currentRoom, map);
+        return map;
+    }
+
+    int offset(int[] position) {
+        // where the [ of the room is in its floor's drawing
+        int[] bounds = layout.floors.get(position[2]);
+        return 2 * (position[1] - bounds[2]) * lineLength(bounds) + (position[0] - bounds[0]) * (CELLWIDTH + GAP);
+    }
+
+    static int lineLength(int[] bounds) {
+        // every room and gap on the line and the new line
+        return (bounds[1] - bounds[0] + 1) * (CELLWIDTH + GAP) - GAP + 1;
+    }
+}
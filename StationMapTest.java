@@ -0,0 +1,107 @@
+/**
+ * Checks the map is drawn the right way and that changing only the letters for a link gives the same map
+ * as drawing the whole station again.
+ *
+ * uses the station in the project folder, so run it from there: "java StationMapTest"
+ * it prints every check that failed and exits with 1
+ *
+ * @author agent
+ * @version 19/10/26
+ */
+
+import java.io.File; // Station folder
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList; // Flexible sized array
+import java.util.Collections;
+import java.util.Random; // Same changes every run
+import java.util.Scanner; // Game keyboard
+
+public class StationMapTest extends TestCheck
+{
+    SpaceStationTextAdventure pack = new SpaceStationTextAdventure(new File("."), false);
+
+    SpaceStationTextAdventure newGame() {
+        return new SpaceStationTextAdventure(pack, new Scanner(""), new PrintStream(OutputStream.nullOutputStream()));
+    }
+
+    void checkDrawing() {
+        SpaceStationTextAdventure game = newGame();
+        StationMap map = game.map();
+        String entrance = map.render("Entrance");
+        check(entrance.startsWith("Floor 0 "), "the Entrance is on floor 0");
+        check(entrance.contains("[  *Entrance    ]"), "the player is shown in the Entrance");
+        check(entrance.contains("[   EngineRoom  ]--[   Hub         ]--[   PotatoFarm  ]"), "rooms that lead to each other are joined by a line");
+        check(map.render("Entrance") == entrance, "the same map is given again while nothing changes");
+        check(map.render("Moon").equals("There is no map of this room"), "a room that does not exist has no map");
+
+        game.addDirection("Hub", "up", "Storage Room");
+        String hub = map.render("Hub");
+        check(hub.contains("[^ *Hub         ]"), "opening the way up shows ^ by the Hub");
+        String storage = map.render("Storage Room");
+        check(storage.startsWith("Floor 1 ") && storage.contains("*Storage Room"), "the Storage Room is on floor 1");
+
+        game.delDirection("Hub", "east");
+        check(map.render("Hub").contains("[^ *Hub         ]<-[   PotatoFarm  ]"), "a way that only goes one way is an arrow");
+    }
+
+    void checkFarLinks() {
+        // links to rooms that are not next to each other are listed under the map of the floor they start on
+        SpaceStationTextAdventure game = newGame();
+        StationMap map = game.map();
+        game.addDirection("Hub", "up", "Storage Room");
+        game.addDirection("EngineRoom", "north", "PotatoFarm");
+        game.addDirection("Storage Room", "east", "Entrance");
+        String floor0 = map.render("Hub");
+        String floor1 = map.render("Storage Room");
+        check(floor0.contains("EngineRoom north to PotatoFarm\n"), "a far link is listed under its own floor");
+        check(!floor1.contains("EngineRoom north to PotatoFarm"), "a far link is not listed under another floor");
+        check(floor1.contains("Storage Room east to Entrance\n"), "a far link from the upper floor is listed under it");
+        check(!floor0.contains("Storage Room east to Entrance"), "a far link from the upper floor is not listed under floor 0");
+        game.delDirection("EngineRoom", "north");
+        check(!map.render("Hub").contains("EngineRoom north to PotatoFarm"), "a closed far link is no longer listed");
+    }
+
+    void checkChanges() {
+        // open and close directions at random, the map kept up to date must match one drawn from nothing
+        SpaceStationTextAdventure game = newGame();
+        StationMap map = game.map();
+        ArrayList<String> rooms = Collections.list(game.roomDictionary.keys());
+        Collections.sort(rooms);
+        Random random = new Random(1);
+        for (int i = 0; i < 500; i++) {
+            String room = rooms.get(random.nextInt(rooms.size()));
+            String direction = StationMap.DIRECTIONS[random.nextInt(StationMap.DIRECTIONS.length)];
+            if (random.nextBoolean()) {
+                game.addDirection(room, direction, rooms.get(random.nextInt(rooms.size())));
+            } else {
+                game.delDirection(room, direction);
+            }
+            String viewedFrom = rooms.get(random.nextInt(rooms.size()));
+            String drawnAgain = new StationMap(game.mapLayout, game).render(viewedFrom);
+            String kept = map.render(viewedFrom);
+            // far links can be listed in a different order, the drawing itself must be the same
+            check(sorted(kept).equals(sorted(drawnAgain)), "the map after change " + i + " matches one drawn again:\n" + kept + "\n" + drawnAgain);
+        }
+    }
+
+    static ArrayList<String> sorted(String map) {
+        // the far links under the drawing in order, they are listed in the order they were opened
+        ArrayList<String> lines = new ArrayList<>();
+        Collections.addAll(lines, map.split("\n"));
+        int firstLink = 1; // after the Floor line
+        while (firstLink < lines.size() && (lines.get(firstLink).startsWith("[") || lines.get(firstLink).startsWith(" "))) {
+            firstLink++;
+        }
+        Collections.sort(lines.subList(firstLink, lines.size()));
+        return lines;
+    }
+
+    public static void main(String[] args) {
+        StationMapTest test = new StationMapTest();
+        test.checkDrawing();
+        test.checkFarLinks();
+        test.checkChanges();
+        test.finish();
+    }
+}
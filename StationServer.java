@@ -0,0 +1,291 @@
+/**
+ * Runs the text adventure as a server so many players can play at once (with telnet or similar).
+ *
+ * each connection picks a world and gets its own game, games of the same world share the loaded files
+ * or plays on the world's shared station, where every player sees the same items and doors
+ * a connection can also watch a game that is being played instead
+ * every command is saved to the logs folder
+ * games waiting for a command for longer than idleSeconds, or using more than budgetKB, are saved to the
+ * sessions folder and their memory freed, they are loaded back when the player types their next command
+ * type "report" in the server window to see memory used by each world and game, "quit" to stop the server
+ *
+ * @author agent
+ * @version 19/10/26
+ */
+
+import java.io.File; // Logs folder
+import java.io.IOException; // Handle connection exceptions
+import java.io.PrintStream;
+import java.net.ServerSocket; // Wait for connections
+import java.net.Socket;
+import java.util.ArrayList; // Flexible sized array
+import java.util.Collections;
+import java.util.Dictionary; // Save games in dictionary
+import java.util.Hashtable; // Goes with Dictionary
+import java.util.NoSuchElementException; // Thrown by Scanner when the player disconnects
+import java.util.Scanner; // Read the player's commands
+import java.util.concurrent.atomic.AtomicInteger; // Game numbers given out from many threads
+
+public class StationServer
+{
+    WorldRegistry registry = new WorldRegistry();
+    int port;
+    // Dictionary with every game being played, by game number, so spectators can find them
+    Dictionary<Integer, SpaceStationTextAdventure> liveGames = new Hashtable<>();
+    // Dictionary with the world each game is playing
+    Dictionary<Integer, String> liveWorlds = new Hashtable<>();
+    AtomicInteger nextGameNumber = new AtomicInteger(1);
+    // one log for every game on the server
+    EventLog eventLog = new EventLog(new File("logs"));
+    // idle games are saved here
+    File sessionsFolder = new File("sessions");
+    long idleSeconds;
+    long budgetKB;
+
+    StationServer(int port, long idleSeconds, long budgetKB) {
+        this.port = port;
+        this.idleSeconds = idleSeconds;
+        this.budgetKB = budgetKB;
+    }
+
+    void start() throws IOException {
+        ServerSocket serverSocket = new ServerSocket(port);
+        System.out.println("server started on port " + port);
+        Thread console = new Thread(() -> readConsole(serverSocket));
+        console.setDaemon(true);
+        console.start();
+        // games saved by an earlier run of the server can never be loaded back
+        File[] oldSessions = sessionsFolder.listFiles();
+        if (oldSessions != null) {
+            for (File oldSession: oldSessions) {
+                oldSession.delete();
+            }
+        }
+        Thread saver = new Thread(() -> saveIdleGames(), "idle game saver");
+        saver.setDaemon(true);
+        saver.start();
+        while (!serverSocket.isClosed()) {
+            Socket socket;
+            try {
+                socket = serverSocket.accept();
+            } catch (IOException error) {
+                // closed by the quit command
+                break;
+            }
+            // one thread for each player, it waits for their commands
+            new Thread(() -> runGame(socket)).start();
+        }
+    }
+
+    void readConsole(ServerSocket serverSocket) {
+        // commands typed in the server window
+        Scanner keyboard = new Scanner(System.in);
+        while (keyboard.hasNextLine()) {
+            String command = keyboard.nextLine().trim();
+            if (command.equals("report")) {
+                registry.printReport(System.out);
+                printSessionReport();
+            } else if (command.equals("quit")) {
+                try {
+                    serverSocket.close();
+                } catch (IOException error) {
+                    System.out.println(error.getClass().getCanonicalName());
+                }
+                return;
+            } else {
+                System.out.println("server commands: report, quit");
+            }
+        }
+    }
+
+    void saveIdleGames() {
+        // runs on its own thread while the server is running, checks every game once a second
+        while (true) {
+            try {
+                Thread.sleep(1000);
+            } catch (InterruptedException error) {
+                return;
+            }
+            for (int gameNumber: Collections.list(liveGames.keys())) {
+                SpaceStationTextAdventure game = liveGames.get(gameNumber);
+                if (game != null && game.passiveFile == null) {
+                    // does nothing if the game is busy, recently used and under budget, or already saved
+                    game.passivate(new File(sessionsFolder, game.gameName + ".txt"), idleSeconds * 1000, budgetKB * 1024);
+                }
+            }
+        }
+    }
+
+    void printSessionReport() {
+        int inMemory = 0;
+        int saved = 0;
+        int busy = 0;
+        long memory = 0;
+        for (int gameNumber: Collections.list(liveGames.keys())) {
+            SpaceStationTextAdventure game = liveGames.get(gameNumber);
+            if (game == null) {
+                continue;
+            }
+            long gameMemory = game.memoryUsed();
+            if (gameMemory == -1) {
+                busy++;
+                continue;
+            }
+            if (game.passiveFile != null) {
+                saved++;
+            } else {
+                inMemory++;
+            }
+            memory += gameMemory;
+        }
+        System.out.println("games waiting in memory: " + inMemory + ", saved while idle: " + saved + ", busy: " + busy
+            + ", memory of games not busy: " + memory / 1024 + " KB");
+        System.out.println("(games are saved after " + idleSeconds + " seconds idle or over " + budgetKB + " KB)");
+    }
+
+    void runGame(Socket socket) {
+        String worldName = null;
+        int gameNumber = 0;
+        SpaceStationTextAdventure game = null;
+        try {
+            // the game prints a turn a line at a time, without this each line waits for the player's computer
+            // to acknowledge the last one (up to 40ms a line with delayed acknowledgements)
+            socket.setTcpNoDelay(true);
+            Scanner keyboard = new Scanner(socket.getInputStream(), "UTF-8");
+            PrintStream out = new PrintStream(socket.getOutputStream(), true, "UTF-8");
+            if (!liveGames.isEmpty()) {
+                out.println("Type 'watch' to watch a game or press enter to play");
+                if (keyboard.nextLine().trim().equalsIgnoreCase("watch")) {
+                    watchGame(keyboard, out);
+                    return;
+                }
+            }
+            worldName = chooseWorld(keyboard, out);
+            SpaceStationTextAdventure pack = registry.join(worldName);
+            if (pack == null) {
+                out.println("that station could not be loaded");
+                worldName = null;
+                return;
+            }
+            // everything printed to the player is also saved for spectators
+            TurnBroadcast broadcast = new TurnBroadcast();
+            PrintStream teeOut = new PrintStream(broadcast.tee(socket.getOutputStream()), true, "UTF-8");
+            game = new SpaceStationTextAdventure(pack, keyboard, teeOut);
+            game.broadcast = broadcast;
+            // players connect with a terminal so colours and clearing the screen work
+            game.console = true;
+            game.remote = true;
+            // clearing the screen every turn means printing the whole status every turn, which is what
+            // sending only what changed saves, so server games start without it (the player can turn it on)
+            game.settings.load("clearScreen", "false");
+            gameNumber = nextGameNumber.getAndIncrement();
+            game.eventLog = eventLog;
+            game.gameName = "game" + gameNumber;
+            out.println("Press enter to play on your own or type 'shared' to play on the shared station with everyone else");
+            if (keyboard.nextLine().trim().equalsIgnoreCase("shared")) {
+                game.joinSharedWorld(registry.sharedWorld(worldName, pack));
+            }
+            liveWorlds.put(gameNumber, worldName);
+            liveGames.put(gameNumber, game);
+            game.play();
+        } catch (IOException | NoSuchElementException error) {
+            // player disconnected, nothing to do except free their world below
+        } finally {
+            if (gameNumber != 0) {
+                liveGames.remove(gameNumber);
+                liveWorlds.remove(gameNumber);
+                game.broadcast.finish();
+                // anything the player was holding is left on the shared station
+                game.leaveSharedWorld();
+                if (game.sharedWorld != null) {
+                    registry.leaveSharedWorld(worldName);
+                }
+                if (game.passiveFile != null) {
+                    // disconnected while saved
+                    game.passiveFile.delete();
+                }
+            }
+            if (worldName != null) {
+                registry.leave(worldName);
+            }
+            try {
+                socket.close();
+            } catch (IOException error) {
+                // already closed
+            }
+        }
+    }
+
+    void watchGame(Scanner keyboard, PrintStream out) {
+        ArrayList<Integer> gameNumbers = Collections.list(liveGames.keys());
+        Collections.sort(gameNumbers);
+        out.println("Choose a game to watch:");
+        for (int gameNumber: gameNumbers) {
+            SpaceStationTextAdventure game = liveGames.get(gameNumber);
+            String worldName = liveWorlds.get(gameNumber);
+            if (game != null && worldName != null) {
+                out.println(gameNumber + " " + worldName + " (in " + game.currentRoom + ")");
+            }
+        }
+        SpaceStationTextAdventure game = null;
+        try {
+            game = liveGames.get(Integer.parseInt(keyboard.nextLine().trim()));
+        } catch (NumberFormatException error) {
+            // not a number, game stays null
+        }
+        if (game == null) {
+            out.println("no game with that number");
+            return;
+        }
+        try {
+            game.broadcast.watch(out);
+            out.println("the game has ended");
+        } catch (InterruptedException error) {
+            // server stopping
+        }
+    }
+
+    String chooseWorld(Scanner keyboard, PrintStream out) {
+        ArrayList<String> worldNames = registry.worldNames();
+        if (worldNames.size() == 1) {
+            // only the bundled station, no need to ask
+            return worldNames.get(0);
+        }
+        while (true) {
+            out.println("Choose a station:");
+            for (int i = 0; i < worldNames.size(); i++) {
+                out.println((i + 1) + " " + worldNames.get(i));
+            }
+            String choice = keyboard.nextLine().trim();
+            if (worldNames.contains(choice)) {
+                return choice;
+            }
+            try {
+                int number = Integer.parseInt(choice);
+                if (number >= 1 && number <= worldNames.size()) {
+                    return worldNames.get(number - 1);
+                }
+            } catch (NumberFormatException error) {
+                // not a number, ask again
+            }
+            out.println("no station with that name or number");
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        // java StationServer (port) (idle seconds) (memory budget KB per game)
+        int port = 4000;
+        long idleSeconds = 60;
+        long budgetKB = 64;
+        if (args.length > 0) {
+            port = Integer.parseInt(args[0]);
+        }
+        if (args.length > 1) {
+            idleSeconds = Long.parseLong(args[1]);
+        }
+        if (args.length > 2) {
+            budgetKB = Long.parseLong(args[2]);
+        }
+        new StationServer(port, idleSeconds, budgetKB).start();
+    }
+}
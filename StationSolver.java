@@ -0,0 +1,675 @@
+/**
+ * Checks that the station in the project folder can be completed.
+ *
+ * first checks the files for names that point to rooms that do not exist
+ * then searches every state the game can be in (breadth first, in parallel) and prints the shortest
+ * list of commands that completes the game, or says that no state completes the game
+ *
+ * a state is the current room, where each direction an interactable controls leads now (closed, or to
+ * which room, since two interactables can control the same direction), how many turns are left before each
+ * interactable that locks itself again closes, and where every item that completes the game or teleports is,
+ * packed into a few longs so millions of states fit in memory
+ *
+ * every command in the search takes a turn, so the number of commands is the turn the game is won on
+ * and is checked against the earliest GAMEOVER timed event. waiting is "description"
+ * the solver will not say the game can or cannot be completed if something could change the game that
+ * it does not search: TOGGLE timed events (they depend on the turn, not on the state) and rules that do
+ * more than say something or that replace using an item or interactable. crew are left out because in a
+ * game they never use interactables or pick up items that can be used (see CrewSimulation)
+ *
+ * @author agent
+ * @version 19/10/26
+ */
+
+import java.util.ArrayList; // Flexible sized array
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Dictionary;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap; // Visited states shared between threads
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+
+public class StationSolver
+{
+    class State {
+        // packed state, see encode
+        long[] bits;
+        int hash;
+
+        State(long[] bits) {
+            this.bits = bits;
+            this.hash = Arrays.hashCode(bits);
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof State && Arrays.equals(bits, ((State) other).bits);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    class Step {
+        // how a state was first reached
+        State previous;
+        String command;
+
+        Step(State previous, String command) {
+            this.previous = previous;
+            this.command = command;
+        }
+    }
+
+    SpaceStationTextAdventure adventure;
+    ArrayList<String> problems = new ArrayList<>();
+
+    // rooms by number, Inventory and used up items get the numbers after the last room
+    String[] rooms;
+    HashMap<String, Integer> roomNumbers = new HashMap<>();
+    int inventory;
+    int usedUp;
+    int startingRoom;
+
+    // interactables by number: {room placed in, start room, leads to, direction, name}
+    ArrayList<String[]> interactables = new ArrayList<>();
+    // turns before each interactable closes itself again, 0 if it stays open
+    int[] relockTurns;
+    // number of each interactable with relockTurns in the countdowns part of the state, -1 if it does not relock
+    int[] countdownNumbers;
+    // turns of each countdown, in countdown number order
+    ArrayList<Integer> countdownTurns = new ArrayList<>();
+    // directions from the room files by room and DIRECTIONSLIST number, null if there is no pathway
+    String[][] baseDirections;
+    // link (a direction an interactable controls) by room and DIRECTIONSLIST number, -1 if none
+    int[][] controlledDirections;
+    // where each link can lead, 0 is closed (null), then the direction from the room file (if any)
+    // and the room of every interactable that controls it
+    ArrayList<ArrayList<String>> linkValues = new ArrayList<>();
+    // link of each interactable and the number of the room it opens the link to
+    int[] interactLinks;
+    int[] interactValues;
+    // things the search does not model, the station is not checked if there are any
+    ArrayList<String> unsupported = new ArrayList<>();
+
+    // every item in the station by number, items with the same name are next to each other
+    String[] itemNames;
+    // first and last number (exclusive) for each item name
+    HashMap<String, int[]> itemRanges = new HashMap<>();
+
+    // number of bits for each part of the state
+    int roomBits;
+    int[] linkBits;
+    int[] countdownBits;
+    int itemBits;
+    int totalBits;
+
+    ConcurrentHashMap<State, Step> visited = new ConcurrentHashMap<>();
+    Set<String> reachedRooms = ConcurrentHashMap.newKeySet();
+    AtomicReference<Step> win = new AtomicReference<>();
+    long maxStates;
+
+    StationSolver(SpaceStationTextAdventure adventure, long maxStates) {
+        this.adventure = adventure;
+        this.maxStates = maxStates;
+    }
+
+    // Checking files
+
+    void checkFiles() {
+        // names in files that point to rooms that do not exist
+        Enumeration<String> roomNames = adventure.directionDictionary.keys();
+        while (roomNames.hasMoreElements()) {
+            String room = roomNames.nextElement();
+            Dictionary<String, String> roomDirections = adventure.directionDictionary.get(room);
+            Enumeration<String> directions = roomDirections.keys();
+            while (directions.hasMoreElements()) {
+                String direction = directions.nextElement();
+                String leadsTo = roomDirections.get(direction);
+                if (!roomExists(leadsTo)) {
+                    problems.add("Rooms/" + room + "/directions.txt: " + direction + " leads to '" + leadsTo + "' which does not exist");
+                }
+                if (!Arrays.asList(adventure.DIRECTIONSLIST).contains(direction)) {
+                    problems.add("Rooms/" + room + "/directions.txt: '" + direction + "' is not a direction");
+                }
+            }
+        }
+        for (String[] interact: interactables) {
+            String name = interact[4];
+            if (!roomExists(interact[1])) {
+                problems.add("Interactables/" + name + ".txt: start room '" + interact[1] + "' does not exist");
+            }
+            if (!roomExists(interact[2])) {
+                problems.add("Interactables/" + name + ".txt: leads to '" + interact[2] + "' which does not exist");
+            }
+            if (!Arrays.asList(adventure.DIRECTIONSLIST).contains(interact[3])) {
+                problems.add("Interactables/" + name + ".txt: '" + interact[3] + "' is not a direction");
+            }
+        }
+        Enumeration<String> useItems = adventure.useItemsDictionary.keys();
+        while (useItems.hasMoreElements()) {
+            String item = useItems.nextElement();
+            String roomName = adventure.getUseItem(item)[1];
+            if (!roomExists(roomName)) {
+                problems.add("UseItems/" + item + ".txt: room '" + roomName + "' does not exist");
+            }
+            if (changesGame(item) && !itemRanges.containsKey(item)) {
+                problems.add("UseItems/" + item + ".txt: there is no " + item + " in any room");
+            }
+        }
+        // mistakes in the story text markup
+        problems.addAll(adventure.introductionStory.problems);
+        problems.addAll(adventure.gameCompleteStory.problems);
+        Enumeration<StoryText> sequences = adventure.newRoomDictionary.elements();
+        while (sequences.hasMoreElements()) {
+            problems.addAll(sequences.nextElement().problems);
+        }
+        problems.addAll(adventure.rules.problems);
+    }
+
+    boolean roomExists(String room) {
+        return room != null && adventure.roomDictionary.get(room) != null;
+    }
+
+    // Packing states
+
+    void setup() {
+        // give every room, interactable and item a number
+        ArrayList<String> roomList = Collections.list(adventure.roomDictionary.keys());
+        Collections.sort(roomList);
+        rooms = roomList.toArray(new String[0]);
+        for (int i = 0; i < rooms.length; i++) {
+            roomNumbers.put(rooms[i], i);
+        }
+        inventory = rooms.length;
+        usedUp = rooms.length + 1;
+        startingRoom = roomNumbers.get(adventure.currentSettings.startingRoom);
+
+        // copy the directions so threads do not all lock the same Hashtable
+        String[] directions = adventure.DIRECTIONSLIST;
+        baseDirections = new String[rooms.length][directions.length];
+        controlledDirections = new int[rooms.length][directions.length];
+        for (int room = 0; room < rooms.length; room++) {
+            for (int direction = 0; direction < directions.length; direction++) {
+                baseDirections[room][direction] = adventure.roomInDirection(rooms[room], directions[direction]);
+                controlledDirections[room][direction] = -1;
+            }
+        }
+
+        ArrayList<Integer> relocks = new ArrayList<>();
+        for (String room: rooms) {
+            Dictionary<String, String[]> roomInteractables = adventure.interactDictionary.get(room);
+            ArrayList<String> names = Collections.list(roomInteractables.keys());
+            Collections.sort(names);
+            for (String name: names) {
+                String[] info = roomInteractables.get(name);
+                String[] interact = {room, info[0], info[1], info[2], name};
+                interactables.add(interact);
+                // already checked to be a number that is not negative when it was loaded
+                relocks.add(Integer.parseInt(info[5]));
+            }
+        }
+        relockTurns = new int[interactables.size()];
+        countdownNumbers = new int[interactables.size()];
+        interactLinks = new int[interactables.size()];
+        interactValues = new int[interactables.size()];
+        for (int i = 0; i < interactables.size(); i++) {
+            String[] interact = interactables.get(i);
+            relockTurns[i] = relocks.get(i);
+            countdownNumbers[i] = -1;
+            if (relockTurns[i] > 0) {
+                countdownNumbers[i] = countdownTurns.size();
+                countdownTurns.add(relockTurns[i]);
+            }
+            interactLinks[i] = -1;
+            int direction = Arrays.asList(directions).indexOf(interact[3]);
+            if (!roomNumbers.containsKey(interact[1]) || direction == -1) {
+                // already a problem from checkFiles, using it does nothing the search can follow
+                continue;
+            }
+            int room = roomNumbers.get(interact[1]);
+            int link = controlledDirections[room][direction];
+            if (link == -1) {
+                // the first interactable for this direction makes the link
+                link = linkValues.size();
+                controlledDirections[room][direction] = link;
+                ArrayList<String> values = new ArrayList<>();
+                values.add(null);
+                if (baseDirections[room][direction] != null) {
+                    values.add(baseDirections[room][direction]);
+                }
+                linkValues.add(values);
+            }
+            ArrayList<String> values = linkValues.get(link);
+            if (!values.contains(interact[2])) {
+                values.add(interact[2]);
+            }
+            interactLinks[i] = link;
+            interactValues[i] = values.indexOf(interact[2]);
+        }
+
+        // only items that complete the game or teleport change what can happen
+        // the rest (HINT or no use at all) are left out, otherwise every place they could be dropped is another state
+        ArrayList<String> items = new ArrayList<>();
+        for (String room: rooms) {
+            for (String item: adventure.itemsDictionary.get(room)) {
+                if (changesGame(item)) {
+                    items.add(item);
+                }
+            }
+        }
+        Collections.sort(items);
+        itemNames = items.toArray(new String[0]);
+        for (int i = 0; i < itemNames.length; i++) {
+            int[] range = itemRanges.get(itemNames[i]);
+            if (range == null) {
+                itemRanges.put(itemNames[i], new int[] {i, i + 1});
+            } else {
+                range[1] = i + 1;
+            }
+        }
+
+        roomBits = bitsFor(rooms.length);
+        totalBits = roomBits;
+        linkBits = new int[linkValues.size()];
+        for (int link = 0; link < linkBits.length; link++) {
+            linkBits[link] = bitsFor(linkValues.get(link).size());
+            totalBits += linkBits[link];
+        }
+        countdownBits = new int[countdownTurns.size()];
+        for (int countdown = 0; countdown < countdownBits.length; countdown++) {
+            // 0 is not counting down, up to the number of turns
+            countdownBits[countdown] = bitsFor(countdownTurns.get(countdown) + 1);
+            totalBits += countdownBits[countdown];
+        }
+        itemBits = bitsFor(rooms.length + 2);
+        totalBits += itemBits * itemNames.length;
+        findUnsupported();
+    }
+
+    void findUnsupported() {
+        // things that change the game which the search does not follow
+        for (TimingWheel.TimedEvent event: adventure.timingWheel.events()) {
+            if (event.type == SpaceStationTextAdventure.TimedEventType.TOGGLE) {
+                unsupported.add("the TOGGLE timed event for " + event.interactName + " depends on the turn");
+            }
+        }
+        Enumeration<ArrayList<Rules.Rule>> ruleLists = adventure.rules.index.elements();
+        while (ruleLists.hasMoreElements()) {
+            for (Rules.Rule rule: ruleLists.nextElement()) {
+                if (!rule.onlySays) {
+                    unsupported.add("the rule '" + rule.text + "' changes the game");
+                } else if (rule.trigger.equals("interact") || (rule.trigger.equals("use") && changesGame(rule.name))) {
+                    unsupported.add("the rule '" + rule.text + "' replaces what the " + rule.name + " does");
+                }
+            }
+        }
+        if (adventure.crew != null && !adventure.crew.leaveGameAlone) {
+            unsupported.add("the crew can use interactables and carry items the player needs");
+        }
+        Collections.sort(unsupported);
+    }
+
+    boolean changesGame(String item) {
+        String[] useItemInfo = adventure.getUseItem(item);
+        if (useItemInfo == null) {
+            return false;
+        }
+        String itemEnum = useItemInfo[0];
+        return itemEnum.equals(SpaceStationTextAdventure.OnInteract.COMPLETEGAME.name()) || itemEnum.equals(SpaceStationTextAdventure.OnInteract.TELEPORT.name());
+    }
+
+    int bitsFor(int values) {
+        // number of bits to store numbers from 0 to values-1
+        int bits = 1;
+        while ((1 << bits) < values) {
+            bits++;
+        }
+        return bits;
+    }
+
+    State encode(int room, int[] links, int[] countdowns, int[] itemPlaces) {
+        long[] bits = new long[(totalBits + 63) / 64];
+        int position = 0;
+        position = putBits(bits, position, roomBits, room);
+        for (int link = 0; link < links.length; link++) {
+            position = putBits(bits, position, linkBits[link], links[link]);
+        }
+        for (int countdown = 0; countdown < countdowns.length; countdown++) {
+            position = putBits(bits, position, countdownBits[countdown], countdowns[countdown]);
+        }
+        for (int place: itemPlaces) {
+            position = putBits(bits, position, itemBits, place);
+        }
+        return new State(bits);
+    }
+
+    int putBits(long[] bits, int position, int count, int value) {
+        for (int i = 0; i < count; i++) {
+            if (((value >> i) & 1) == 1) {
+                bits[(position + i) / 64] |= 1L << ((position + i) % 64);
+            }
+        }
+        return position + count;
+    }
+
+    int getBits(long[] bits, int position, int count) {
+        int value = 0;
+        for (int i = 0; i < count; i++) {
+            if ((bits[(position + i) / 64] >> ((position + i) % 64) & 1) == 1) {
+                value |= 1 << i;
+            }
+        }
+        return value;
+    }
+
+    int decodeRoom(State state) {
+        return getBits(state.bits, 0, roomBits);
+    }
+
+    int[] decodeLinks(State state) {
+        int[] links = new int[linkBits.length];
+        int position = roomBits;
+        for (int link = 0; link < links.length; link++) {
+            links[link] = getBits(state.bits, position, linkBits[link]);
+            position += linkBits[link];
+        }
+        return links;
+    }
+
+    int[] decodeCountdowns(State state) {
+        int[] countdowns = new int[countdownBits.length];
+        int position = roomBits;
+        for (int bits: linkBits) {
+            position += bits;
+        }
+        for (int countdown = 0; countdown < countdowns.length; countdown++) {
+            countdowns[countdown] = getBits(state.bits, position, countdownBits[countdown]);
+            position += countdownBits[countdown];
+        }
+        return countdowns;
+    }
+
+    int[] decodeItems(State state) {
+        int[] itemPlaces = new int[itemNames.length];
+        int position = totalBits - itemBits * itemNames.length;
+        for (int i = 0; i < itemPlaces.length; i++) {
+            itemPlaces[i] = getBits(state.bits, position + i * itemBits, itemBits);
+        }
+        return itemPlaces;
+    }
+
+    State startState() {
+        // links start as the room files have them, nothing is counting down
+        int[] links = new int[linkValues.size()];
+        for (int room = 0; room < rooms.length; room++) {
+            for (int direction = 0; direction < adventure.DIRECTIONSLIST.length; direction++) {
+                int link = controlledDirections[room][direction];
+                if (link != -1) {
+                    links[link] = linkValues.get(link).indexOf(baseDirections[room][direction]);
+                }
+            }
+        }
+        int[] countdowns = new int[countdownTurns.size()];
+        // put every item in the room it starts in
+        int[] itemPlaces = new int[itemNames.length];
+        HashMap<String, Integer> nextOfName = new HashMap<>();
+        for (String room: rooms) {
+            for (String item: adventure.itemsDictionary.get(room)) {
+                if (!itemRanges.containsKey(item)) {
+                    // not part of the search
+                    continue;
+                }
+                int index = nextOfName.getOrDefault(item, itemRanges.get(item)[0]);
+                itemPlaces[index] = roomNumbers.get(room);
+                nextOfName.put(item, index + 1);
+            }
+        }
+        sortItems(itemPlaces);
+        return encode(startingRoom, links, countdowns, itemPlaces);
+    }
+
+    void sortItems(int[] itemPlaces) {
+        // items with the same name are the same, sorting their places means
+        // "potato 1 in the farm, potato 2 held" and "potato 1 held, potato 2 in the farm" are one state
+        for (int[] range: itemRanges.values()) {
+            Arrays.sort(itemPlaces, range[0], range[1]);
+        }
+    }
+
+    // Searching
+
+    String leadsTo(int room, int direction, int[] links) {
+        // same as roomInDirection but with the links from the state
+        int link = controlledDirections[room][direction];
+        if (link != -1) {
+            return linkValues.get(link).get(links[link]);
+        }
+        return baseDirections[room][direction];
+    }
+
+    void toggle(int interact, int[] links, int[] countdowns) {
+        // same as toggleInteract: closes the direction if it leads anywhere, otherwise opens it
+        int link = interactLinks[interact];
+        if (link == -1) {
+            return;
+        }
+        if (links[link] != 0) {
+            links[link] = 0;
+        } else {
+            links[link] = interactValues[interact];
+            if (countdownNumbers[interact] != -1) {
+                // a newer opening replaces the older relock, like the opened turn does in the game
+                countdowns[countdownNumbers[interact]] = relockTurns[interact];
+            }
+        }
+    }
+
+    void endTurn(int[] links, int[] countdowns) {
+        // same as the RELOCK timed events at the end of the turn
+        // a relock closes the direction if anything leads there, even if another interactable opened it
+        for (int interact = 0; interact < interactables.size(); interact++) {
+            int countdown = countdownNumbers[interact];
+            if (countdown != -1 && countdowns[countdown] > 0) {
+                countdowns[countdown]--;
+                if (countdowns[countdown] == 0 && links[interactLinks[interact]] != 0) {
+                    links[interactLinks[interact]] = 0;
+                }
+            }
+        }
+    }
+
+    State next(int room, int[] links, int[] countdowns, int[] itemPlaces) {
+        // the state after a command, once the turn has ended
+        int[] newLinks = links.clone();
+        int[] newCountdowns = countdowns.clone();
+        endTurn(newLinks, newCountdowns);
+        return encode(room, newLinks, newCountdowns, itemPlaces);
+    }
+
+    List<State> expand(State state) {
+        // every state that one command can reach which has not been seen yet
+        ArrayList<State> found = new ArrayList<>();
+        int room = decodeRoom(state);
+        int[] links = decodeLinks(state);
+        int[] countdowns = decodeCountdowns(state);
+        int[] itemPlaces = decodeItems(state);
+        reachedRooms.add(rooms[room]);
+
+        // waiting takes a turn too, which matters while something is counting down
+        visit(state, "description", next(room, links, countdowns, itemPlaces), found);
+
+        for (int direction = 0; direction < adventure.DIRECTIONSLIST.length; direction++) {
+            String leadsTo = leadsTo(room, direction, links);
+            // roomNumbers only has rooms that exist
+            if (leadsTo != null && roomNumbers.containsKey(leadsTo)) {
+                visit(state, adventure.DIRECTIONSLIST[direction], next(roomNumbers.get(leadsTo), links, countdowns, itemPlaces), found);
+            }
+        }
+
+        for (String item: itemRanges.keySet()) {
+            int[] range = itemRanges.get(item);
+            int inRoom = -1;
+            int held = -1;
+            for (int i = range[0]; i < range[1]; i++) {
+                if (itemPlaces[i] == room) {
+                    inRoom = i;
+                } else if (itemPlaces[i] == inventory) {
+                    held = i;
+                }
+            }
+            if (inRoom != -1) {
+                int[] newPlaces = itemPlaces.clone();
+                newPlaces[inRoom] = inventory;
+                sortItems(newPlaces);
+                visit(state, "pickup " + item, next(room, links, countdowns, newPlaces), found);
+            }
+            if (held != -1) {
+                int[] newPlaces = itemPlaces.clone();
+                newPlaces[held] = room;
+                sortItems(newPlaces);
+                visit(state, "drop " + item, next(room, links, countdowns, newPlaces), found);
+
+                String[] useItemInfo = adventure.getUseItem(item);
+                if (useItemInfo != null && rooms[room].equals(useItemInfo[1])) {
+                    SpaceStationTextAdventure.OnInteract itemEnum = SpaceStationTextAdventure.OnInteract.valueOf(useItemInfo[0]);
+                    if (itemEnum == SpaceStationTextAdventure.OnInteract.COMPLETEGAME) {
+                        win.compareAndSet(null, new Step(state, "use " + item));
+                    } else if (itemEnum == SpaceStationTextAdventure.OnInteract.TELEPORT) {
+                        int[] usedPlaces = itemPlaces.clone();
+                        usedPlaces[held] = usedUp;
+                        sortItems(usedPlaces);
+                        visit(state, "use " + item, next(startingRoom, links, countdowns, usedPlaces), found);
+                    }
+                    // HINT does not change anything
+                }
+            }
+        }
+
+        for (int i = 0; i < interactables.size(); i++) {
+            String[] interact = interactables.get(i);
+            if (interact[0].equals(rooms[room])) {
+                int[] newLinks = links.clone();
+                int[] newCountdowns = countdowns.clone();
+                toggle(i, newLinks, newCountdowns);
+                visit(state, "interact " + interact[4], next(room, newLinks, newCountdowns, itemPlaces), found);
+            }
+        }
+        return found;
+    }
+
+    void visit(State from, String command, State to, ArrayList<State> found) {
+        // putIfAbsent means only one thread gets to add a state
+        if (visited.putIfAbsent(to, new Step(from, command)) == null) {
+            found.add(to);
+        }
+    }
+
+    ArrayList<String> solve() {
+        // breadth first: every state one command away, then two commands away...
+        // so the first win found is the shortest, returns null if the game cannot be completed
+        // keeps searching after a win so every reachable room is known
+        State start = startState();
+        visited.put(start, new Step(null, null));
+        List<State> frontier = new ArrayList<>();
+        frontier.add(start);
+        while (!frontier.isEmpty() && visited.size() < maxStates) {
+            frontier = frontier.parallelStream()
+                .flatMap(state -> expand(state).stream())
+                .collect(Collectors.toList());
+        }
+        if (win.get() == null) {
+            return null;
+        }
+        // follow the steps back to the start
+        ArrayList<String> commands = new ArrayList<>();
+        commands.add(win.get().command);
+        State state = win.get().previous;
+        Step step = visited.get(state);
+        while (step.previous != null) {
+            commands.add(0, step.command);
+            step = visited.get(step.previous);
+        }
+        return commands;
+    }
+
+    int gameOverTurn() {
+        // earliest GAMEOVER timed event, or -1 if there is none
+        int earliest = -1;
+        for (TimingWheel.TimedEvent event: adventure.timingWheel.events()) {
+            if (event.type == SpaceStationTextAdventure.TimedEventType.GAMEOVER) {
+                if (earliest == -1 || event.dueTurn < earliest) {
+                    earliest = event.dueTurn;
+                }
+            }
+        }
+        return earliest;
+    }
+
+    public static void main(String[] args) {
+        // java StationSolver (max states)
+        long maxStates = 50000000;
+        if (args.length > 0) {
+            maxStates = Long.parseLong(args[0]);
+        }
+        SpaceStationTextAdventure adventure = new SpaceStationTextAdventure(false);
+        if (adventure.currentRoom == null) {
+            System.out.println("the station failed to load");
+            System.exit(1);
+        }
+        StationSolver solver = new StationSolver(adventure, maxStates);
+        solver.setup();
+        solver.checkFiles();
+        for (String problem: solver.problems) {
+            System.out.println("PROBLEM " + problem);
+        }
+        if (!solver.unsupported.isEmpty()) {
+            // a search that leaves these out could say the game can be completed when it cannot, or the other way
+            for (String reason: solver.unsupported) {
+                System.out.println("NOT CHECKED " + reason);
+            }
+            System.out.println("the solver cannot say if this station can be completed");
+            System.exit(1);
+        }
+
+        long startTime = System.nanoTime();
+        ArrayList<String> commands = solver.solve();
+        long time = (System.nanoTime() - startTime) / 1000000;
+        System.out.println("searched " + solver.visited.size() + " states in " + time + "ms (" + solver.totalBits + " bits per state)");
+
+        boolean ok = solver.problems.isEmpty();
+        if (commands != null) {
+            System.out.println("the game can be completed in " + commands.size() + " commands:");
+            for (String command: commands) {
+                System.out.println("  " + command);
+            }
+            int gameOverTurn = solver.gameOverTurn();
+            if (gameOverTurn != -1 && commands.size() > gameOverTurn) {
+                System.out.println("PROBLEM the game is lost on turn " + gameOverTurn + " before it can be completed");
+                ok = false;
+            }
+        } else if (solver.visited.size() >= maxStates) {
+            System.out.println("stopped after " + maxStates + " states without completing the game, try a bigger limit");
+            ok = false;
+        } else {
+            System.out.println("PROBLEM the game cannot be completed, none of the " + solver.visited.size() + " reachable states complete it");
+            ok = false;
+        }
+        // only complete if the search finished, otherwise rooms might be reached later
+        if (solver.visited.size() < maxStates) {
+            for (String room: solver.rooms) {
+                if (!solver.reachedRooms.contains(room)) {
+                    System.out.println("PROBLEM room " + room + " can never be reached");
+                    ok = false;
+                }
+            }
+        }
+        System.exit(ok ? 0 : 1);
+    }
+}
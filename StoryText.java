@@ -0,0 +1,145 @@
+/**
+ * Story text (the introduction, room sequences and game complete text) compiled into a list of steps.
+ *
+ * the text is read once when the station is loaded and turned into steps like "print this", "change colour"
+ * and "wait for enter", so showing it again only runs the steps without splitting or comparing any strings
+ *
+ * markup in the text files:
+ * {pause} or a line that is only waitForInput();   wait for the player to press enter
+ * {RED} ... {/}                                   colour part of a line, any name from the colours dictionary
+ * {room} {turn} {itemsHeld} {itemsInRoom}          filled in when the text is shown
+ * {{                                              a { that is not markup
+ *
+ * @author agent
+ * @version 19/10/26
+ */
+
+import java.util.ArrayList; // Flexible sized array
+import java.util.Dictionary; // Colour codes by name
+
+public class StoryText
+{
+    // step types
+    static final int TEXT = 0; // print texts[argument]
+    static final int COLOUR = 1; // change colour to the ansi code texts[argument], null goes back to the text's colour
+    static final int VARIABLE = 2; // print the variable with number argument
+    static final int NEWLINE = 3; // end the line
+    static final int PAUSE = 4; // wait for enter
+
+    // variables in the same order as their numbers
+    static final String[] VARIABLES = {"room", "turn", "itemsHeld", "itemsInRoom"};
+    static final int ROOM = 0;
+    static final int TURN = 1;
+    static final int ITEMSHELD = 2;
+    static final int ITEMSINROOM = 3;
+
+    // steps[i] is the type of step i, arguments[i] is what it uses
+    int[] steps;
+    int[] arguments;
+    String[] texts;
+    // mistakes found in the markup, the text is still shown with the mistake printed as it was written
+    ArrayList<String> problems = new ArrayList<>();
+
+    static StoryText compile(String fileName, String text, Dictionary<String, String> colours) {
+        StoryText story = new StoryText();
+        ArrayList<Integer> steps = new ArrayList<>();
+        ArrayList<Integer> arguments = new ArrayList<>();
+        ArrayList<String> texts = new ArrayList<>();
+        if (text == null) {
+            text = "";
+        }
+        String[] lines = text.split("\n");
+        for (int lineNumber = 0; lineNumber < lines.length; lineNumber++) {
+            String line = lines[lineNumber];
+            if (line.trim().equals("waitForInput();")) {
+                // the old way of pausing, still works
+                steps.add(PAUSE);
+                arguments.add(0);
+                continue;
+            }
+            // letters since the last piece of markup, added as one TEXT step
+            StringBuilder plain = new StringBuilder();
+            boolean endsWithPause = false;
+            int i = 0;
+            while (i < line.length()) {
+                char letter = line.charAt(i);
+                if (letter != '{') {
+                    plain.append(letter);
+                    i++;
+                    continue;
+                }
+                if (i + 1 < line.length() && line.charAt(i + 1) == '{') {
+                    plain.append('{');
+                    i += 2;
+                    continue;
+                }
+                int close = line.indexOf('}', i);
+                if (close == -1) {
+                    story.problems.add(fileName + " line " + (lineNumber + 1) + ": '{' is never closed, use {{ for a {");
+                    plain.append(line.substring(i));
+                    break;
+                }
+                String name = line.substring(i + 1, close);
+                int variable = indexOf(VARIABLES, name);
+                int step;
+                int argument = 0;
+                if (name.equals("pause")) {
+                    step = PAUSE;
+                } else if (name.equals("/")) {
+                    step = COLOUR;
+                    argument = -1;
+                } else if (variable != -1) {
+                    step = VARIABLE;
+                    argument = variable;
+                } else if (colours.get(name.toUpperCase()) != null) {
+                    step = COLOUR;
+                    argument = texts.size();
+                    texts.add(colours.get(name.toUpperCase()));
+                } else {
+                    story.problems.add(fileName + " line " + (lineNumber + 1) + ": {" + name + "} is not a colour, variable or pause");
+                    plain.append(line, i, close + 1);
+                    i = close + 1;
+                    continue;
+                }
+                if (plain.length() > 0) {
+                    steps.add(TEXT);
+                    arguments.add(texts.size());
+                    texts.add(plain.toString());
+                    plain.setLength(0);
+                }
+                steps.add(step);
+                arguments.add(argument);
+                endsWithPause = step == PAUSE && close == line.length() - 1;
+                i = close + 1;
+            }
+            if (plain.length() > 0) {
+                steps.add(TEXT);
+                arguments.add(texts.size());
+                texts.add(plain.toString());
+                endsWithPause = false;
+            }
+            // a line that ends with a pause has already been printed by the pause
+            if (!endsWithPause) {
+                steps.add(NEWLINE);
+                arguments.add(0);
+            }
+        }
+        story.steps = new int[steps.size()];
+        story.arguments = new int[steps.size()];
+        for (int i = 0; i < steps.size(); i++) {
+            story.steps[i] = steps.get(i);
+            story.arguments[i] = arguments.get(i);
+        }
+        story.texts = texts.toArray(new String[0]);
+        return story;
+    }
+
+    static int indexOf(String[] names, String name) {
+        for (int i = 0; i < names.length; i++) {
+            if (names[i].equals(name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,29 @@
+/**
+ * Counts the checks a test makes that fail, so every test reports them the same way.
+ *
+ * a test extends it, calls check for each thing it checks and calls finish at the end of main. finish
+ * prints how many checks failed and exits with 1 if any did
+ *
+ * @author agent
+ * @version 19/10/26
+ */
+
+public class TestCheck
+{
+    int failures = 0;
+
+    void check(boolean ok, String what) {
+        if (!ok) {
+            failures++;
+            System.out.println("FAILED: " + what);
+        }
+    }
+
+    void finish() {
+        if (failures > 0) {
+            System.out.println(failures + " check(s) failed");
+            System.exit(1);
+        }
+        System.out.println(getClass().getName() + " passed");
+    }
+}
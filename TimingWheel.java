@@ -0,0 +1,129 @@
+/**
+ * Timed events waiting for the turn they happen on, so finding the events for a turn is the same amount of
+ * work however many events are waiting and however far away they are.
+ *
+ * two wheels of 64 slots, like the hands of a clock: the turn wheel has a slot for each turn of the lap
+ * of 64 turns the game is on, the lap wheel has a slot for each lap up to 4096 turns. events further away
+ * than that wait in the overflow list. when a new lap starts that lap's slot is moved down into the turn
+ * wheel, and every 4096 turns the overflow is checked, so an event is moved at most twice before it happens
+ *
+ * the wheel is ticked by turns only, never by seconds: the game is turn based and a waiting player's thread
+ * is blocked reading their next command, so nothing could show them an event that happened while they waited
+ *
+ * @author agent
+ * @version 19/10/26
+ */
+
+import java.util.ArrayList; // Flexible sized array
+
+public class TimingWheel
+{
+    static class TimedEvent {
+        // never changed, repeating makes a new event
+        final SpaceStationTextAdventure.TimedEventType type;
+        final int dueTurn; // turn it happens on
+        final int repeatTurns; // repeat every x turns, 0 for never
+        final String interactName; // interactable to toggle or relock, not needed for the others
+        final String text;
+        final int openedTurn; // RELOCK only, the turn the interactable was opened on (which opening on the shared station)
+
+        TimedEvent(SpaceStationTextAdventure.TimedEventType type, int dueTurn, int repeatTurns, String interactName, String text, int openedTurn) {
+            this.type = type;
+            this.dueTurn = dueTurn;
+            this.repeatTurns = repeatTurns;
+            this.interactName = interactName;
+            this.text = text;
+            this.openedTurn = openedTurn;
+        }
+
+        TimedEvent repeatAfter(int turn) {
+            return new TimedEvent(type, turn + repeatTurns, repeatTurns, interactName, text, openedTurn);
+        }
+    }
+
+    static final int SLOTS = 64;
+    static final int LAPTURNS = SLOTS * SLOTS; // turns the two wheels cover
+
+    // events due on each turn of the current lap, by turn % SLOTS
+    ArrayList<ArrayList<TimedEvent>> turns = new ArrayList<>();
+    // events due in each later lap before the next LAPTURNS, by (turn / SLOTS) % SLOTS
+    ArrayList<ArrayList<TimedEvent>> laps = new ArrayList<>();
+    // events too far away for the wheels
+    ArrayList<TimedEvent> overflow = new ArrayList<>();
+
+    TimingWheel() {
+        for (int slot = 0; slot < SLOTS; slot++) {
+            turns.add(new ArrayList<>());
+            laps.add(new ArrayList<>());
+        }
+    }
+
+    TimingWheel copy() {
+        // events are never changed so only the slots need copying
+        TimingWheel copy = new TimingWheel();
+        for (int slot = 0; slot < SLOTS; slot++) {
+            copy.turns.set(slot, new ArrayList<>(turns.get(slot)));
+            copy.laps.set(slot, new ArrayList<>(laps.get(slot)));
+        }
+        copy.overflow = new ArrayList<>(overflow);
+        return copy;
+    }
+
+    void add(TimedEvent event, int currentTurn) {
+        // an event for a turn that has already gone happens on the next one
+        place(event, Math.max(event.dueTurn, currentTurn + 1), currentTurn);
+    }
+
+    void place(TimedEvent event, int dueTurn, int currentTurn) {
+        if (dueTurn / SLOTS == currentTurn / SLOTS) {
+            turns.get(dueTurn % SLOTS).add(event);
+        } else if (dueTurn / LAPTURNS == currentTurn / LAPTURNS) {
+            laps.get(dueTurn / SLOTS % SLOTS).add(event);
+        } else {
+            overflow.add(event);
+        }
+    }
+
+    ArrayList<TimedEvent> advance(int turn) {
+        // called once for every turn, in order, returns the events that happen on it
+        if (turn % SLOTS == 0) {
+            if (turn % LAPTURNS == 0) {
+                // events that are now close enough for the wheels
+                ArrayList<TimedEvent> waiting = overflow;
+                overflow = new ArrayList<>();
+                for (TimedEvent event: waiting) {
+                    place(event, event.dueTurn, turn);
+                }
+            }
+            // a new lap, its events move down to the turn wheel
+            ArrayList<TimedEvent> lap = laps.get(turn / SLOTS % SLOTS);
+            laps.set(turn / SLOTS % SLOTS, new ArrayList<>());
+            for (TimedEvent event: lap) {
+                place(event, event.dueTurn, turn);
+            }
+        }
+        ArrayList<TimedEvent> due = turns.get(turn % SLOTS);
+        turns.set(turn % SLOTS, new ArrayList<>());
+        return due;
+    }
+
+    ArrayList<TimedEvent> events() {
+        // every waiting event, for saving and checking the station
+        ArrayList<TimedEvent> events = new ArrayList<>();
+        for (int slot = 0; slot < SLOTS; slot++) {
+            events.addAll(turns.get(slot));
+            events.addAll(laps.get(slot));
+        }
+        events.addAll(overflow);
+        return events;
+    }
+
+    long estimateMemory() {
+        // rough like WorldRegistry's estimates, the slot lists and every event with its text
+        long size = 16 + (2 * SLOTS + 1) * 40;
+        for (TimedEvent event: events()) {
+            size += 4 + 40 + WorldRegistry.estimateMemory(event.interactName) + WorldRegistry.estimateMemory(event.text);
+        }
+        return size;
+    }
+}
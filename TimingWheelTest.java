@@ -0,0 +1,98 @@
+/**
+ * Checks the timing wheel gives back every timed event on exactly the turn it is due, once.
+ *
+ * events are spread over more than one lap of the lap wheel so some wait in the overflow list, and more
+ * are added while the turns go by like repeating events are
+ *
+ * run "java TimingWheelTest" from the project folder, it prints every check that failed and exits with 1
+ *
+ * @author agent
+ * @version 19/10/26
+ */
+
+import java.util.ArrayList; // Flexible sized array
+import java.util.Hashtable;
+import java.util.Random; // Same events every run
+
+public class TimingWheelTest extends TestCheck
+{
+    static TimingWheel.TimedEvent warning(int dueTurn, int repeatTurns, String text) {
+        return new TimingWheel.TimedEvent(SpaceStationTextAdventure.TimedEventType.WARNING, dueTurn, repeatTurns, null, text, 0);
+    }
+
+    void checkDueTurns() {
+        // every event happens on its due turn, wherever in the wheels it was put
+        final int lastTurn = 3 * TimingWheel.LAPTURNS;
+        Random random = new Random(1);
+        TimingWheel wheel = new TimingWheel();
+        Hashtable<String, Integer> dueTurns = new Hashtable<>();
+        for (int i = 0; i < 2000; i++) {
+            int dueTurn = 1 + random.nextInt(lastTurn);
+            dueTurns.put("event " + i, dueTurn);
+            wheel.add(warning(dueTurn, 0, "event " + i), 0);
+        }
+        check(wheel.events().size() == 2000, "events() has every event waiting");
+        Hashtable<String, Integer> firedTurns = new Hashtable<>();
+        int added = 0;
+        for (int turn = 1; turn <= lastTurn; turn++) {
+            for (TimingWheel.TimedEvent event: wheel.advance(turn)) {
+                check(firedTurns.get(event.text) == null, event.text + " happened twice");
+                firedTurns.put(event.text, turn);
+            }
+            if (turn % 97 == 0) {
+                // added part way through, like a repeat or a relock
+                int dueTurn = turn + 1 + random.nextInt(lastTurn - turn);
+                String text = "added " + added++;
+                dueTurns.put(text, dueTurn);
+                wheel.add(warning(dueTurn, 0, text), turn);
+            }
+        }
+        check(firedTurns.size() == dueTurns.size(), "every event happened (" + firedTurns.size() + " of " + dueTurns.size() + ")");
+        for (String text: dueTurns.keySet()) {
+            Integer firedTurn = firedTurns.get(text);
+            check(dueTurns.get(text).equals(firedTurn), text + " was due on turn " + dueTurns.get(text) + " but happened on " + firedTurn);
+        }
+        check(wheel.events().isEmpty(), "nothing is left waiting");
+    }
+
+    void checkPastTurns() {
+        // an event for a turn that has already gone happens on the next one
+        TimingWheel wheel = new TimingWheel();
+        for (int turn = 1; turn <= 10; turn++) {
+            wheel.advance(turn);
+        }
+        wheel.add(warning(3, 0, "late"), 10);
+        ArrayList<TimingWheel.TimedEvent> due = wheel.advance(11);
+        check(due.size() == 1 && due.get(0).text.equals("late"), "an event added for a turn that has gone happens on the next turn");
+    }
+
+    void checkRepeat() {
+        TimingWheel.TimedEvent event = warning(5, 7, "repeat");
+        TimingWheel.TimedEvent next = event.repeatAfter(5);
+        check(next.dueTurn == 12 && next.repeatTurns == 7 && next.text.equals("repeat"), "repeatAfter is due repeatTurns later");
+        check(event.dueTurn == 5, "repeatAfter leaves the event it was made from alone");
+    }
+
+    void checkCopy() {
+        // each game copies the loaded station's wheel, advancing one copy must not change the other
+        TimingWheel wheel = new TimingWheel();
+        wheel.add(warning(2, 0, "near"), 0);
+        wheel.add(warning(TimingWheel.SLOTS * 3, 0, "next laps"), 0);
+        wheel.add(warning(TimingWheel.LAPTURNS * 2, 0, "overflow"), 0);
+        TimingWheel copy = wheel.copy();
+        for (int turn = 1; turn <= TimingWheel.LAPTURNS * 2; turn++) {
+            copy.advance(turn);
+        }
+        check(copy.events().isEmpty(), "the copy gave back all of its events");
+        check(wheel.events().size() == 3, "the wheel it was copied from still has its events");
+    }
+
+    public static void main(String[] args) {
+        TimingWheelTest test = new TimingWheelTest();
+        test.checkDueTurns();
+        test.checkPastTurns();
+        test.checkRepeat();
+        test.checkCopy();
+        test.finish();
+    }
+}
@@ -0,0 +1,161 @@
+/**
+ * Sends what a player sees to any number of spectators.
+ *
+ * everything printed to the player is also saved, and when the player types a command the turn is put
+ * into a ring of the last CAPACITY turns. spectators read the ring at their own speed
+ * the player never waits for spectators and does not lock anything, a spectator that falls more than
+ * CAPACITY turns behind skips ahead to the oldest turn still in the ring
+ * the game only prints what changed each turn, so a new spectator asks for everything to be printed again
+ *
+ * @author agent
+ * @version 19/10/26
+ */
+
+import java.io.ByteArrayOutputStream; // Save the turn's output
+import java.io.IOException; // Handle connection exceptions
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicReferenceArray; // Ring of turns, safe to read from other threads
+
+public class TurnBroadcast
+{
+    class Turn {
+        // number is checked by spectators to tell if the slot has been reused for a newer turn
+        long number;
+        String text;
+
+        Turn(long number, String text) {
+            this.number = number;
+            this.text = text;
+        }
+    }
+
+    final int CAPACITY = 64;
+    AtomicReferenceArray<Turn> ring = new AtomicReferenceArray<>(CAPACITY);
+    // number of turns put into the ring, only changed by the player's thread
+    volatile long published = 0;
+    volatile boolean finished = false;
+    // set by a spectator that starts watching, the game prints the whole room next turn and clears it
+    volatile boolean newSpectator = false;
+    // output since the last command, only used by the player's thread
+    ByteArrayOutputStream turnOutput = new ByteArrayOutputStream();
+
+    OutputStream tee(OutputStream playerOut) {
+        // writes to the player and saves a copy for the turn
+        return new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                playerOut.write(b);
+                turnOutput.write(b);
+            }
+
+            @Override
+            public void write(byte[] bytes, int offset, int length) throws IOException {
+                playerOut.write(bytes, offset, length);
+                turnOutput.write(bytes, offset, length);
+            }
+
+            @Override
+            public void flush() throws IOException {
+                playerOut.flush();
+            }
+
+            @Override
+            public void close() throws IOException {
+                playerOut.close();
+            }
+        };
+    }
+
+    void endTurn(String input) {
+        // called by the game when the player types something
+        // spectators see the output then what was typed
+        String text = turnOutput.toString(StandardCharsets.UTF_8) + "> " + input + "\n";
+        turnOutput.reset();
+        publish(text);
+    }
+
+    void finish() {
+        // called when the game ends, sends the last output
+        publish(turnOutput.toString(StandardCharsets.UTF_8));
+        turnOutput.reset();
+        finished = true;
+    }
+
+    void trim() {
+        // let go of every turn except the latest, called by the player's thread or while it waits for input
+        // a spectator that was behind skips ahead to the latest turn
+        long latest = published - 1;
+        for (int i = 0; i < CAPACITY; i++) {
+            if (i != (int) (latest % CAPACITY)) {
+                ring.set(i, null);
+            }
+        }
+        // the buffer keeps the size of the biggest turn so far, so move the output spectators have not been
+        // sent yet (the last command's result and the prompt) into one just big enough for it
+        ByteArrayOutputStream unsent = new ByteArrayOutputStream(turnOutput.size());
+        unsent.writeBytes(turnOutput.toByteArray());
+        turnOutput = unsent;
+    }
+
+    long estimateMemory() {
+        // rough size of the saved turns in bytes
+        long size = 16 + 4 * CAPACITY + turnOutput.size();
+        for (int i = 0; i < CAPACITY; i++) {
+            Turn turn = ring.get(i);
+            if (turn != null) {
+                size += 24 + 40 + turn.text.length();
+            }
+        }
+        return size;
+    }
+
+    void publish(String text) {
+        long number = published;
+        ring.set((int) (number % CAPACITY), new Turn(number, text));
+        // set after the slot so a spectator that sees the new count also sees the turn
+        published = number + 1;
+    }
+
+    void watch(PrintStream out) throws InterruptedException {
+        // runs on the spectator's thread until the game ends or the spectator disconnects
+        // start with the latest turn so the spectator sees where the player is
+        long next = Math.max(0, published - 1);
+        newSpectator = true;
+        while (true) {
+            long available = published;
+            if (next >= available) {
+                if (finished) {
+                    return;
+                }
+                // nothing new, check again soon (the player does not wake spectators up)
+                Thread.sleep(50);
+                continue;
+            }
+            if (available - next > CAPACITY) {
+                // too slow, the turns have been overwritten
+                long skipTo = available - CAPACITY;
+                out.println("(skipped " + (skipTo - next) + " turns)");
+                next = skipTo;
+            }
+            Turn turn = ring.get((int) (next % CAPACITY));
+            if (turn == null && next < available - 1) {
+                // let go of by trim, skip to the latest turn
+                next = available - 1;
+                continue;
+            }
+            if (turn == null || turn.number != next) {
+                // overwritten while we were looking, go around again to skip ahead
+                continue;
+            }
+            out.print(turn.text);
+            out.flush();
+            if (out.checkError()) {
+                // spectator disconnected
+                return;
+            }
+            next++;
+        }
+    }
+}
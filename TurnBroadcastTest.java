@@ -0,0 +1,134 @@
+/**
+ * Checks spectators see the player's turns in order, skip ahead when they fall too far behind, and that
+ * trim keeps the output spectators have not been sent yet.
+ *
+ * run "java TurnBroadcastTest" from the project folder, it prints every check that failed and exits with 1
+ *
+ * @author agent
+ * @version 19/10/26
+ */
+
+import java.io.ByteArrayOutputStream; // What a spectator was sent
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CountDownLatch; // Hold a spectator back
+
+public class TurnBroadcastTest extends TestCheck
+{
+    static Thread spectator(TurnBroadcast broadcast, OutputStream sent) {
+        // watches the broadcast on its own thread like a spectator's connection does
+        Thread thread = new Thread(() -> {
+            try {
+                broadcast.watch(new PrintStream(sent, true, StandardCharsets.UTF_8));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        thread.start();
+        return thread;
+    }
+
+    static void waitForSpectator(TurnBroadcast broadcast) throws InterruptedException {
+        while (!broadcast.newSpectator) {
+            Thread.sleep(5);
+        }
+    }
+
+    void checkInOrder() throws InterruptedException {
+        TurnBroadcast broadcast = new TurnBroadcast();
+        PrintStream player = new PrintStream(broadcast.tee(OutputStream.nullOutputStream()), true, StandardCharsets.UTF_8);
+        player.print("first room\n");
+        broadcast.endTurn("north");
+        ByteArrayOutputStream sent = new ByteArrayOutputStream();
+        Thread thread = spectator(broadcast, sent);
+        waitForSpectator(broadcast);
+        player.print("second room\n");
+        broadcast.endTurn("pickup potato");
+        player.print("the end\n");
+        broadcast.finish();
+        thread.join(10000);
+        check(!thread.isAlive(), "watching stops when the game finishes");
+        check(sent.toString(StandardCharsets.UTF_8).equals("first room\n> north\nsecond room\n> pickup potato\nthe end\n"),
+            "a spectator sees the latest turn then every turn after it in order: " + sent.toString(StandardCharsets.UTF_8));
+    }
+
+    void checkSkipAhead() throws InterruptedException {
+        // a spectator that is stuck sending one turn while the player plays on skips to the oldest turn kept
+        TurnBroadcast broadcast = new TurnBroadcast();
+        CountDownLatch stuck = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ByteArrayOutputStream sent = new ByteArrayOutputStream();
+        OutputStream slow = new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                write(new byte[] {(byte) b}, 0, 1);
+            }
+
+            @Override
+            public void write(byte[] bytes, int offset, int length) throws IOException {
+                stuck.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    throw new IOException(e);
+                }
+                sent.write(bytes, offset, length);
+            }
+        };
+        broadcast.publish("turn 0\n");
+        Thread thread = spectator(broadcast, slow);
+        stuck.await();
+        int turns = broadcast.CAPACITY * 2;
+        for (int i = 1; i <= turns; i++) {
+            broadcast.publish("turn " + i + "\n");
+        }
+        broadcast.finished = true;
+        release.countDown();
+        thread.join(10000);
+        String text = sent.toString(StandardCharsets.UTF_8);
+        check(!thread.isAlive(), "the slow spectator stops when the game finishes");
+        check(text.startsWith("turn 0\n(skipped "), "the slow spectator is told it skipped turns: " + text);
+        check(!text.contains("turn 1\n") && text.contains("turn " + (turns - broadcast.CAPACITY + 1) + "\n"),
+            "the slow spectator skips to the oldest turn still kept");
+        check(text.endsWith("turn " + turns + "\n"), "the slow spectator still sees the last turn");
+    }
+
+    void checkTrim() throws InterruptedException {
+        TurnBroadcast broadcast = new TurnBroadcast();
+        PrintStream player = new PrintStream(broadcast.tee(OutputStream.nullOutputStream()), true, StandardCharsets.UTF_8);
+        for (int i = 0; i < 10; i++) {
+            player.print("turn " + i + "\n");
+            broadcast.endTurn("wait");
+        }
+        // the game is idle part way through printing a turn
+        player.print("the prompt\n");
+        broadcast.trim();
+        int kept = 0;
+        for (int i = 0; i < broadcast.CAPACITY; i++) {
+            if (broadcast.ring.get(i) != null) {
+                kept++;
+            }
+        }
+        check(kept == 1, "trim lets go of every turn but the latest");
+        check(broadcast.turnOutput.toString(StandardCharsets.UTF_8).equals("the prompt\n"), "trim keeps the output not sent yet");
+
+        ByteArrayOutputStream sent = new ByteArrayOutputStream();
+        Thread thread = spectator(broadcast, sent);
+        waitForSpectator(broadcast);
+        broadcast.endTurn("north");
+        broadcast.finish();
+        thread.join(10000);
+        check(sent.toString(StandardCharsets.UTF_8).equals("turn 9\n> wait\nthe prompt\n> north\n"),
+            "a spectator after trim sees the latest turn and the output kept by trim: " + sent.toString(StandardCharsets.UTF_8));
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        TurnBroadcastTest test = new TurnBroadcastTest();
+        test.checkInOrder();
+        test.checkSkipAhead();
+        test.checkTrim();
+        test.finish();
+    }
+}
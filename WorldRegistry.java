@@ -0,0 +1,193 @@
+/**
+ * Keeps every loaded world pack so the files are only read once.
+ *
+ * the bundled station is the world called "station", other worlds are folders in the Worlds folder
+ * laid out the same as the project folder (Rooms, Interactables, config...)
+ *
+ * each game joins a world and leaves it when it ends
+ * a world is loaded by the first game to join and unloaded when the last game leaves
+ *
+ * @author agent
+ * @version 19/10/26
+ */
+
+import java.io.File; // Get files
+import java.io.PrintStream;
+import java.util.ArrayList; // Flexible sized array
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Dictionary; // Save world data in dictionary
+import java.util.Enumeration;
+import java.util.Hashtable; // Goes with Dictionary
+
+public class WorldRegistry
+{
+    final String BUNDLEDWORLD = "station";
+    File worldsFolder = new File("Worlds");
+
+    // Dictionary for loaded worlds
+    Dictionary<String, SpaceStationTextAdventure> packs = new Hashtable<>();
+    // Dictionary with how many games are playing each loaded world
+    Dictionary<String, Integer> players = new Hashtable<>();
+    // Dictionary with the shared station of each world, made by the first player on it and dropped with the last
+    Dictionary<String, SharedWorld> sharedWorlds = new Hashtable<>();
+    // Dictionary with how many games are on each shared station
+    Dictionary<String, Integer> sharedPlayers = new Hashtable<>();
+
+    ArrayList<String> worldNames() {
+        // bundled station first, then the Worlds folder in alphabetical order
+        ArrayList<String> names = new ArrayList<>();
+        names.add(BUNDLEDWORLD);
+        File[] worldFolders = worldsFolder.listFiles(File::isDirectory);
+        if (worldFolders != null) {
+            Arrays.sort(worldFolders);
+            for (File worldFolder: worldFolders) {
+                names.add(worldFolder.getName());
+            }
+        }
+        return names;
+    }
+
+    File folderFor(String worldName) {
+        if (worldName.equals(BUNDLEDWORLD)) {
+            return new File(".");
+        }
+        return new File(worldsFolder, worldName);
+    }
+
+    synchronized SpaceStationTextAdventure join(String worldName) {
+        // returns the loaded world or null if it does not exist or failed to load
+        // synchronized so two games joining at once do not load the same world twice
+        if (!worldNames().contains(worldName)) {
+            return null;
+        }
+        SpaceStationTextAdventure pack = packs.get(worldName);
+        if (pack == null) {
+            System.out.println("loading world " + worldName);
+            pack = new SpaceStationTextAdventure(folderFor(worldName), false);
+            if (pack.currentRoom == null) {
+                // currentRoom is only set once everything has loaded
+                System.out.println("world " + worldName + " failed to load");
+                return null;
+            }
+            packs.put(worldName, pack);
+            players.put(worldName, 0);
+        }
+        players.put(worldName, players.get(worldName) + 1);
+        return pack;
+    }
+
+    synchronized SharedWorld sharedWorld(String worldName, SpaceStationTextAdventure pack) {
+        // the first player to choose the shared station makes it from the loaded world
+        SharedWorld world = sharedWorlds.get(worldName);
+        if (world == null) {
+            world = new SharedWorld(pack);
+            sharedWorlds.put(worldName, world);
+            sharedPlayers.put(worldName, 0);
+        }
+        sharedPlayers.put(worldName, sharedPlayers.get(worldName) + 1);
+        return world;
+    }
+
+    synchronized void leaveSharedWorld(String worldName) {
+        // the station starts again from the loaded world when the next player chooses it
+        Integer count = sharedPlayers.get(worldName);
+        if (count == null) {
+            return;
+        }
+        if (count <= 1) {
+            sharedWorlds.remove(worldName);
+            sharedPlayers.remove(worldName);
+        } else {
+            sharedPlayers.put(worldName, count - 1);
+        }
+    }
+
+    synchronized void leave(String worldName) {
+        Integer count = players.get(worldName);
+        if (count == null) {
+            return;
+        }
+        if (count <= 1) {
+            // nobody is playing so the memory can be freed
+            packs.remove(worldName);
+            players.remove(worldName);
+            System.out.println("unloaded world " + worldName);
+        } else {
+            players.put(worldName, count - 1);
+        }
+    }
+
+    synchronized void printReport(PrintStream out) {
+        // memory is estimated from the size of the strings, arrays and dictionaries
+        out.println("world, players, shared KB, KB per game, total KB");
+        ArrayList<String> names = Collections.list(packs.keys());
+        Collections.sort(names);
+        long allWorlds = 0;
+        for (String worldName: names) {
+            SpaceStationTextAdventure pack = packs.get(worldName);
+            int count = players.get(worldName);
+            long shared = sharedMemory(pack);
+            long perGame = gameMemory(pack);
+            long total = shared + perGame * count;
+            allWorlds += total;
+            out.println(worldName + ", " + count + ", " + shared / 1024 + ", " + perGame / 1024 + ", " + total / 1024);
+        }
+        out.println("all worlds: " + allWorlds / 1024 + " KB");
+    }
+
+    long sharedMemory(SpaceStationTextAdventure pack) {
+        // dictionaries loaded once and used by every game
+        return estimateMemory(pack.roomDictionary) + estimateMemory(pack.descriptionDictionary)
+            + estimateMemory(pack.interactDictionary) + estimateMemory(pack.itemDescriptionDictionary)
+            + estimateMemory(pack.coloursDictionary) + estimateMemory(pack.newRoomDictionary)
+            + estimateMemory(pack.useItemsDictionary) + estimateMemory(pack.introductionStory)
+            + estimateMemory(pack.gameCompleteStory);
+    }
+
+    long gameMemory(SpaceStationTextAdventure pack) {
+        // dictionaries every game copies
+        return estimateMemory(pack.directionDictionary) + estimateMemory(pack.itemsDictionary)
+            + estimateMemory(pack.settings.values) + pack.timingWheel.estimateMemory();
+    }
+
+    static long estimateMemory(Object object) {
+        // rough size in bytes, close enough to compare worlds
+        if (object == null || object instanceof Boolean) {
+            // Boolean.TRUE is shared
+            return 0;
+        } else if (object instanceof String) {
+            // object header, fields and the byte array
+            return 40 + ((String) object).length();
+        } else if (object instanceof Object[]) {
+            Object[] array = (Object[]) object;
+            long size = 16 + 4 * array.length;
+            for (Object element: array) {
+                size += estimateMemory(element);
+            }
+            return size;
+        } else if (object instanceof ArrayList) {
+            ArrayList<?> list = (ArrayList<?>) object;
+            long size = 40 + 4 * list.size();
+            for (Object element: list) {
+                size += estimateMemory(element);
+            }
+            return size;
+        } else if (object instanceof Dictionary) {
+            Dictionary<?, ?> dictionary = (Dictionary<?, ?>) object;
+            // table and one entry object for each key
+            long size = 64 + 8 * dictionary.size();
+            Enumeration<?> keys = dictionary.keys();
+            while (keys.hasMoreElements()) {
+                Object key = keys.nextElement();
+                size += 32 + estimateMemory(key) + estimateMemory(dictionary.get(key));
+            }
+            return size;
+        } else if (object instanceof StoryText) {
+            StoryText story = (StoryText) object;
+            // two int arrays of steps and the texts
+            return 16 + 2 * (16 + 4 * story.steps.length) + estimateMemory(story.texts);
+        }
+        return 16;
+    }
+}
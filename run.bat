@@ -0,0 +1,23 @@
+@echo off
+rem Starts the text adventure with the class data sharing archive so it starts faster
+rem TieredStopAtLevel=1 only uses the quick compiler, which is fast enough for a text adventure
+rem the game is compiled from the .java files into build\station.jar whenever one of them has changed,
+rem build\src has a copy of the .java files the jar was made from so xcopy can list the ones that are newer
+rem the first run (or the first run after a new jar) makes the archive when the game closes
+rem settings can be given after the command, for example: run.bat crewSeed=5
+cd /d "%~dp0"
+set CHANGED=
+if not exist build\station.jar set CHANGED=yes
+for /f %%f in ('xcopy /d /l /y *.java build\src\ ^| find ".java"') do set CHANGED=yes
+if defined CHANGED (
+    if exist build\classes rmdir /s /q build\classes
+    javac -nowarn -d build\classes *.java || exit /b 1
+    jar --create --file build\station.jar --main-class SpaceStationTextAdventure -C build\classes . || exit /b 1
+    xcopy /d /y /q *.java build\src\ >nul
+    if exist station.jsa del station.jsa
+)
+if exist station.jsa (
+    java -XX:SharedArchiveFile=station.jsa -Xshare:auto -XX:TieredStopAtLevel=1 -jar build\station.jar %*
+) else (
+    java -XX:ArchiveClassesAtExit=station.jsa -XX:TieredStopAtLevel=1 -jar build\station.jar %*
+)
@@ -0,0 +1,20 @@
+#!/bin/sh
+# Starts the text adventure with the class data sharing archive so it starts faster
+# TieredStopAtLevel=1 only uses the quick compiler, which is fast enough for a text adventure
+# the game is compiled from the .java files into build/station.jar whenever one of them is newer than the jar
+# the first run (or the first run after a new jar) makes the archive when the game closes
+# settings can be given after the command, for example: ./run.sh crewSeed=5
+cd "$(dirname "$0")"
+JAR=build/station.jar
+ARCHIVE=station.jsa
+if [ ! -f "$JAR" ] || [ -n "$(find . -maxdepth 1 -name '*.java' -newer "$JAR")" ]; then
+    rm -rf build/classes
+    javac -nowarn -d build/classes *.java || exit 1
+    jar --create --file "$JAR" --main-class SpaceStationTextAdventure -C build/classes . || exit 1
+fi
+if [ -f "$ARCHIVE" ] && [ "$ARCHIVE" -nt "$JAR" ]; then
+    exec java -XX:SharedArchiveFile="$ARCHIVE" -Xshare:auto -XX:TieredStopAtLevel=1 -jar "$JAR" "$@"
+else
+    rm -f "$ARCHIVE"
+    exec java -XX:ArchiveClassesAtExit="$ARCHIVE" -XX:TieredStopAtLevel=1 -jar "$JAR" "$@"
+fi